@@ -0,0 +1,113 @@
+#!/usr/bin/env sh
+# Tiempo de arranque: desde lanzar la JVM hasta el primer 200 de /actuator/health.
+# Arranca la aplicación RUNS veces y muestra cada medida y la mediana; con MAX_MS
+# sale con error si la mediana lo supera (gate de regresión en CI).
+#
+#   mvn package -DskipTests && scripts/startup-benchmark.sh
+#   CDS=true scripts/startup-benchmark.sh                         # con archivo CDS
+#   mvn -Paot package -DskipTests && AOT=true CDS=true scripts/startup-benchmark.sh
+#   MAX_MS=6000 RUNS=10 scripts/startup-benchmark.sh
+#
+# Variables:
+#   JAR              jar de Spring Boot (por defecto target/authbackend-*.jar)
+#   RUNS             arranques medidos (5)
+#   PORT             puerto de la aplicación (18080)
+#   MANAGEMENT_PORT  puerto de Actuator, donde se consulta /actuator/health (18081)
+#   CDS              true: entrena y usa un archivo CDS, igual que el Dockerfile
+#   AOT              true: -Dspring.aot.enabled=true (jar construido con -Paot)
+#   PROFILES         SPRING_PROFILES_ACTIVE de la aplicación (prod,fast-start)
+#   JAVA_OPTS        opciones extra de la JVM
+#   APP_ARGS         argumentos extra de la aplicación (p. ej. --spring.datasource.url=...)
+#   EXTRA_CLASSPATH  jars añadidos al classpath (p. ej. el driver de H2 para pruebas locales)
+#   MAX_MS           mediana máxima aceptada en ms (0 = sin umbral)
+#   TIMEOUT_S        espera máxima por arranque (60)
+set -eu
+
+cd "$(dirname "$0")/.."
+
+JAR=${JAR:-$(ls target/authbackend-*.jar 2>/dev/null | grep -v -- '-plain' | head -n 1)}
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+MANAGEMENT_PORT=${MANAGEMENT_PORT:-18081}
+CDS=${CDS:-false}
+AOT=${AOT:-false}
+PROFILES=${PROFILES:-prod,fast-start}
+JAVA_OPTS=${JAVA_OPTS:-}
+APP_ARGS=${APP_ARGS:-}
+EXTRA_CLASSPATH=${EXTRA_CLASSPATH:-}
+MAX_MS=${MAX_MS:-0}
+TIMEOUT_S=${TIMEOUT_S:-60}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+
+if [ -z "$JAR" ] || [ ! -f "$JAR" ]; then
+    echo "No se encuentra el jar; ejecuta antes mvn package -DskipTests" >&2
+    exit 2
+fi
+
+# Mismo formato que la imagen Docker: app.jar + lib/, necesario para CDS
+WORK=target/startup-benchmark
+rm -rf "$WORK"
+"$JAVA" -Djarmode=tools -jar "$JAR" extract --destination "$WORK/app" >/dev/null
+MAIN_CLASS=$(unzip -p "$JAR" META-INF/MANIFEST.MF | sed -n 's/^Start-Class: *//p' | tr -d '\r')
+CLASSPATH="$WORK/app/$(basename "$JAR")${EXTRA_CLASSPATH:+:$EXTRA_CLASSPATH}"
+
+JVM_OPTS="$JAVA_OPTS"
+if [ "$AOT" = "true" ]; then
+    JVM_OPTS="$JVM_OPTS -Dspring.aot.enabled=true"
+fi
+
+if [ "$CDS" = "true" ]; then
+    # Entrenamiento: refresca el contexto y sale, sin arrancar Tomcat ni migrar
+    SPRING_PROFILES_ACTIVE=$PROFILES "$JAVA" -XX:ArchiveClassesAtExit="$WORK/app.jsa" \
+        -Dspring.context.exit=onRefresh -Dstartup.flyway.migrate=false $JVM_OPTS \
+        -cp "$CLASSPATH" "$MAIN_CLASS" $APP_ARGS >"$WORK/training.log" 2>&1 || {
+        echo "Falló el entrenamiento CDS, ver $WORK/training.log" >&2
+        exit 2
+    }
+    JVM_OPTS="$JVM_OPTS -XX:SharedArchiveFile=$WORK/app.jsa"
+fi
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+RESULTS=""
+i=1
+while [ "$i" -le "$RUNS" ]; do
+    start=$(now_ms)
+    SPRING_PROFILES_ACTIVE=$PROFILES "$JAVA" $JVM_OPTS -cp "$CLASSPATH" "$MAIN_CLASS" \
+        --server.port="$PORT" --management.server.port="$MANAGEMENT_PORT" $APP_ARGS >"$WORK/run-$i.log" 2>&1 &
+    pid=$!
+    deadline=$((start + TIMEOUT_S * 1000))
+    elapsed=""
+    while [ "$(now_ms)" -lt "$deadline" ]; do
+        if curl -fs -o /dev/null "http://localhost:$MANAGEMENT_PORT/actuator/health"; then
+            elapsed=$(($(now_ms) - start))
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null; then
+            break
+        fi
+        sleep 0.05
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    if [ -z "$elapsed" ]; then
+        echo "El arranque $i no respondió en /actuator/health, ver $WORK/run-$i.log" >&2
+        exit 2
+    fi
+    echo "arranque $i: $elapsed ms"
+    RESULTS="$RESULTS $elapsed"
+    i=$((i + 1))
+done
+
+MEDIAN=$(echo $RESULTS | tr ' ' '\n' | sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }')
+MIN=$(echo $RESULTS | tr ' ' '\n' | sort -n | head -n 1)
+MAX=$(echo $RESULTS | tr ' ' '\n' | sort -n | tail -n 1)
+echo "=== STARTUP (perfiles=$PROFILES, cds=$CDS, aot=$AOT, $RUNS arranques) ==="
+echo "mediana=$MEDIAN ms min=$MIN ms max=$MAX ms"
+
+if [ "$MAX_MS" -gt 0 ] && [ "$MEDIAN" -gt "$MAX_MS" ]; then
+    echo "La mediana ($MEDIAN ms) supera MAX_MS=$MAX_MS" >&2
+    exit 1
+fi
@@ -0,0 +1,88 @@
+package com.daniel.authbackend.benchmark;
+
+import com.daniel.authbackend.util.JwtUtil;
+import com.daniel.authbackend.util.ParsedToken;
+import com.daniel.authbackend.util.SigningKeyStore;
+import com.daniel.authbackend.util.TokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rutas calientes de {@link JwtUtil}: firma de tokens y verificación, con y sin
+ * la cache de tokens verificados.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET =
+            "Df2025_Aug10_UltraSecretKey_SpringAuth_Backend_JWT_DanyFelipe_ProduccionSegura_!@#$%^&*()_+";
+
+    private static final String FAMILY = UUID.randomUUID().toString();
+
+    @Param({"false", "true"})
+    public boolean tokenCache;
+
+    private JwtUtil jwtUtil;
+    private String accessToken;
+
+    @Setup
+    public void setup() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TokenCache cache = new TokenCache(meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", tokenCache);
+        ReflectionTestUtils.setField(cache, "maximumSize", 10_000L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+
+        SigningKeyStore keyStore = new SigningKeyStore();
+        ReflectionTestUtils.setField(keyStore, "secret", SECRET);
+        ReflectionTestUtils.setField(keyStore, "algorithm", "HS256");
+        ReflectionTestUtils.invokeMethod(keyStore, "init");
+
+        jwtUtil = new JwtUtil(cache, keyStore, meterRegistry);
+        ReflectionTestUtils.setField(jwtUtil, "accessExpiration", 900_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 86_400_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        accessToken = jwtUtil.generateToken("benchmark-user", "USER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("benchmark-user", "USER");
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return jwtUtil.generateRefreshToken("benchmark-user", UUID.randomUUID().toString(), FAMILY,
+                System.currentTimeMillis() + 86_400_000L);
+    }
+
+    @Benchmark
+    public ParsedToken parseToken() {
+        return jwtUtil.parseToken(accessToken);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(accessToken);
+    }
+
+    @Benchmark
+    public String extractRole() {
+        return jwtUtil.extractRole(accessToken);
+    }
+
+    @Benchmark
+    public boolean isTokenExpired() {
+        return jwtUtil.isTokenExpired(accessToken);
+    }
+}
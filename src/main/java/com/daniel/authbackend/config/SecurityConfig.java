@@ -1,11 +1,16 @@
 package com.daniel.authbackend.config;
 
 import com.daniel.authbackend.filter.JwtAuthenticationFilter;
-import com.daniel.authbackend.repository.UserRepository;
+import com.daniel.authbackend.repository.UserCache;
+import com.daniel.authbackend.service.ActivityTracker;
+import com.daniel.authbackend.service.TokenRevocationService;
+import com.daniel.authbackend.util.BoundedPasswordEncoder;
 import com.daniel.authbackend.util.JwtUtil;
 import com.daniel.authbackend.exception.CustomAccessDeniedHandler;
 import com.daniel.authbackend.exception.CustomAuthenticationEntryPoint;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -15,6 +20,11 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.stream.Stream;
 
 @Configuration
 @EnableMethodSecurity
@@ -22,34 +32,64 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final CustomAuthenticationEntryPoint authenticationEntryPoint;
     private final CustomAccessDeniedHandler accessDeniedHandler;
+    private final TokenRevocationService revocationService;
+    private final ActivityTracker activityTracker;
+
+    @Value("${jwt.trust-token-claims:false}")
+    private boolean trustTokenClaims;
+
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    // 0 = un hilo por núcleo disponible
+    @Value("${security.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${security.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    // Fuente única de las rutas públicas: autorización y filtro JWT
+    private static final RequestMatcher PUBLIC_PATHS = new OrRequestMatcher(Stream.of(
+                    "/api/auth/login",
+                    "/api/auth/register",
+                    "/api/auth/refresh",
+                    "/api/auth/logout",
+                    "/livez",
+                    "/readyz",
+                    // Solo existen en management.server.port, que no se publica
+                    "/actuator/health",
+                    "/actuator/prometheus",
+                    "/.well-known/jwks.json")
+            .<RequestMatcher>map(PathPatternRequestMatcher.withDefaults()::matcher)
+            .toList());
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, MeterRegistry meterRegistry) throws Exception {
+        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtUtil, userCache, revocationService,
+                activityTracker, authenticationEntryPoint, PUBLIC_PATHS, trustTokenClaims, meterRegistry);
         http
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(
-                                "/api/auth/login",
-                                "/api/auth/register",
-                                "/api/auth/refresh"
-                        ).permitAll()
+                        .requestMatchers(PUBLIC_PATHS).permitAll()
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(exception -> exception
                         .authenticationEntryPoint(authenticationEntryPoint)
                         .accessDeniedHandler(accessDeniedHandler)
                 )
-                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userRepository), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength),
+                threads, hashingQueueCapacity, meterRegistry);
     }
 }
\ No newline at end of file
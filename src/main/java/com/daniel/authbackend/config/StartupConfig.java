@@ -0,0 +1,24 @@
+package com.daniel.authbackend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Con AOT la presencia de Flyway queda fijada al compilar y spring.flyway.enabled ya
+     * no se puede cambiar al arrancar. Este interruptor sí: el entrenamiento CDS
+     * ({@code -Dspring.context.exit=onRefresh}) lo apaga para no necesitar base de datos.
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${startup.flyway.migrate:true}") boolean migrate) {
+        return flyway -> {
+            if (migrate) {
+                flyway.migrate();
+            }
+        };
+    }
+}
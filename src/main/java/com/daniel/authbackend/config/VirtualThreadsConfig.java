@@ -0,0 +1,39 @@
+package com.daniel.authbackend.config;
+
+import com.daniel.authbackend.filter.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Solo con spring.threads.virtual.enabled=true en Java 21: limita las peticiones
+ * en vuelo a un múltiplo del pool de conexiones.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    // Cuántas peticiones en vuelo se admiten por conexión: no todas van a la base de datos
+    @Value("${server.virtual-threads.requests-per-connection:4}")
+    private int requestsPerConnection;
+
+    @Value("${server.virtual-threads.queue-timeout.ms:1000}")
+    private long queueTimeoutMs;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(poolSize * requestsPerConnection, queueTimeoutMs, meterRegistry));
+        // Antes que Spring Security: una petición rechazada no llega a verificar el JWT
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,82 @@
+package com.daniel.authbackend.controller;
+
+import com.daniel.authbackend.dto.IntrospectionBatchRequest;
+import com.daniel.authbackend.dto.IntrospectionBatchResponse;
+import com.daniel.authbackend.dto.IntrospectionResponse;
+import com.daniel.authbackend.service.TokenIntrospectionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Introspección estilo RFC 7662 para gateways y otros servicios. Cache-Control
+ * se ajusta a la vida restante del token, con {@code jwt.introspection.max-age.seconds}
+ * como tope para que una revocación se vea como mucho con ese retraso. Un token
+ * inactivo nunca vuelve a ser válido y se cachea con el mismo tope.
+ *
+ * <p>Solo para clientes autenticados: el servicio que pregunta envía su propio
+ * token de acceso como Bearer y necesita el rol SERVICE (cuentas de servicio,
+ * asignado en la tabla users) o ADMIN. Abierto, serviría de oráculo para probar
+ * tokens robados.</p>
+ */
+@PreAuthorize("hasAnyAuthority('SERVICE', 'ADMIN')")
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class IntrospectionController {
+
+    private final TokenIntrospectionService introspectionService;
+
+    @Value("${jwt.introspection.max-age.seconds:60}")
+    private long maxAgeSeconds;
+
+    @Value("${jwt.introspection.batch.max-size:100}")
+    private int batchMaxSize;
+
+    @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<IntrospectionResponse> introspect(@RequestParam(value = "token", required = false) String token) {
+        IntrospectionResponse response = introspectionService.introspect(token);
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl(maxAge(response)))
+                .body(response);
+    }
+
+    @PostMapping(value = "/introspect/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IntrospectionBatchResponse> introspectBatch(@RequestBody IntrospectionBatchRequest request) {
+        List<String> tokens = request.getTokens() != null ? request.getTokens() : List.of();
+        if (tokens.size() > batchMaxSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<IntrospectionResponse> results = tokens.stream()
+                .map(introspectionService::introspect)
+                .toList();
+        // El lote entero vale lo que el token que antes caduca
+        long maxAge = results.stream().mapToLong(this::maxAge).min().orElse(0);
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl(maxAge))
+                .body(new IntrospectionBatchResponse(results));
+    }
+
+    private long maxAge(IntrospectionResponse response) {
+        if (!response.isActive()) {
+            return maxAgeSeconds;
+        }
+        long remaining = response.getExp() - System.currentTimeMillis() / 1000;
+        return Math.max(0, Math.min(remaining, maxAgeSeconds));
+    }
+
+    // private: la respuesta depende del token del cuerpo, no debe compartirse entre clientes
+    private static CacheControl cacheControl(long maxAge) {
+        if (maxAge <= 0) {
+            return CacheControl.noStore();
+        }
+        return CacheControl.maxAge(Duration.ofSeconds(maxAge)).cachePrivate();
+    }
+}
@@ -0,0 +1,44 @@
+package com.daniel.authbackend.controller;
+
+import com.daniel.authbackend.util.SigningKeyStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+
+/**
+ * Claves públicas de firma en formato JWKS, para que otros servicios validen
+ * los tokens localmente. La respuesta es cacheable y lleva ETag: un cliente con
+ * la versión actual recibe 304 sin cuerpo.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private static final MediaType JWK_SET = MediaType.parseMediaType("application/jwk-set+json");
+
+    private final SigningKeyStore keyStore;
+
+    @Value("${jwt.jwks.max-age.seconds:300}")
+    private long maxAgeSeconds;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<byte[]> jwks(WebRequest request) {
+        String etag = keyStore.jwksEtag();
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(304).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(JWK_SET)
+                .body(keyStore.jwks());
+    }
+}
@@ -1,14 +1,18 @@
 package com.daniel.authbackend.controller;
 
-import com.daniel.authbackend.dto.UpdateUserRequest;
-import com.daniel.authbackend.dto.UserProfileResponse;
+import com.daniel.authbackend.dto.*;
 import com.daniel.authbackend.service.IUserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -22,22 +26,51 @@ public class UserController {
 
     private final IUserService userService;
 
+    @Value("${users.batch.max-size:1000}")
+    private int batchMaxSize;
+
     /**
      * Obtener todos los usuarios.
      * Solo puede acceder un ADMIN.
      */
-    @PreAuthorize("hasRole('ADMIN')")
+    @PreAuthorize("hasAuthority('ADMIN')")
     @GetMapping("")
     public ResponseEntity<List<UserProfileResponse>> getAllUsers() {
         List<UserProfileResponse> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Listado paginado por keyset: pasar el nextCursor de la respuesta como "after".
+     * Solo puede acceder un ADMIN.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/page")
+    public ResponseEntity<UserPageResponse> getUsersPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String role) {
+        return ResponseEntity.ok(userService.getUsersPage(after, size, role));
+    }
+
+    /**
+     * Exportar todos los usuarios en streaming (NDJSON, un usuario por línea).
+     * Solo puede acceder un ADMIN.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(required = false) String role) {
+        StreamingResponseBody body = out -> userService.exportUsers(role, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Obtener un usuario por username.
      * Solo puede acceder un ADMIN.
      */
-    @PreAuthorize("hasRole('ADMIN')")
+    @PreAuthorize("hasAuthority('ADMIN')")
     @GetMapping("/{username}")
     public ResponseEntity<UserProfileResponse> getUser(@PathVariable String username) {
         UserProfileResponse user = userService.getProfile(username);
@@ -48,7 +81,7 @@ public class UserController {
      * Eliminar usuario.
      * Solo puede acceder un ADMIN.
      */
-    @PreAuthorize("hasRole('ADMIN')")
+    @PreAuthorize("hasAuthority('ADMIN')")
     @DeleteMapping("/{username}")
     public ResponseEntity<Void> deleteUser(@PathVariable String username) {
         userService.deleteUser(username);
@@ -59,18 +92,61 @@ public class UserController {
      * Promover usuario a admin.
      * Solo puede acceder un ADMIN.
      */
-    @PreAuthorize("hasRole('ADMIN')")
+    @PreAuthorize("hasAuthority('ADMIN')")
     @PutMapping("/promote/{username}")
     public ResponseEntity<Void> promoteToAdmin(@PathVariable String username) {
         userService.promoteToAdmin(username);
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Promover varios usuarios a admin en una sola operación.
+     * Solo puede acceder un ADMIN.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/batch/promote")
+    public ResponseEntity<BatchOperationResponse> promoteToAdmin(@RequestBody BatchUsersRequest request) {
+        if (!isValidBatch(request)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userService.promoteToAdmin(request.getUsernames()));
+    }
+
+    /**
+     * Eliminar varios usuarios en una sola operación.
+     * Solo puede acceder un ADMIN.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/batch/delete")
+    public ResponseEntity<BatchOperationResponse> deleteUsers(@RequestBody BatchUsersRequest request) {
+        if (!isValidBatch(request)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userService.deleteUsers(request.getUsernames()));
+    }
+
+    // Lista obligatoria y acotada: va entera a un IN (...) y a una sola transacción
+    private boolean isValidBatch(BatchUsersRequest request) {
+        return request.getUsernames() != null && request.getUsernames().size() <= batchMaxSize;
+    }
+
+    /**
+     * Alta masiva de usuarios en streaming: CSV (cabecera username,email,password)
+     * o NDJSON. Los existentes o repetidos se omiten.
+     * Solo puede acceder un ADMIN.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<UserImportResponse> importUsers(HttpServletRequest request) throws IOException {
+        boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType("text/csv"));
+        return ResponseEntity.ok(userService.importUsers(request.getInputStream(), csv));
+    }
+
     /**
      * Cambiar email/username de un usuario.
      * Solo puede acceder un ADMIN.
      */
-    @PreAuthorize("hasRole('ADMIN')")
+    @PreAuthorize("hasAuthority('ADMIN')")
     @PutMapping("/{username}")
     public ResponseEntity<UserProfileResponse> updateUser(
             @PathVariable String username,
@@ -0,0 +1,13 @@
+package com.daniel.authbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BatchOperationResponse {
+    private int processed;
+    private List<String> notFound;
+}
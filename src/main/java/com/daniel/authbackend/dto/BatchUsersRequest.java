@@ -0,0 +1,10 @@
+package com.daniel.authbackend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchUsersRequest {
+    private List<String> usernames;
+}
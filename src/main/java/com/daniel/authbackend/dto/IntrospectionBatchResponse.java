@@ -0,0 +1,13 @@
+package com.daniel.authbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Un resultado por token, en el mismo orden que la petición
+@Data
+@AllArgsConstructor
+public class IntrospectionBatchResponse {
+    private List<IntrospectionResponse> results;
+}
@@ -0,0 +1,28 @@
+package com.daniel.authbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Respuesta de introspección (RFC 7662). Un token inactivo solo lleva
+ * {@code "active": false}; exp e iat van en segundos desde epoch. Inmutable:
+ * {@link #INACTIVE} se comparte entre todas las respuestas.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IntrospectionResponse {
+
+    public static final IntrospectionResponse INACTIVE = new IntrospectionResponse(false, null, null, null, null, null, null);
+
+    private final boolean active;
+    private final String sub;
+    private final String role;
+    private final Long exp;
+    private final Long iat;
+    private final String jti;
+    @JsonProperty("token_type")
+    private final String tokenType;
+}
@@ -0,0 +1,14 @@
+package com.daniel.authbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserImportResponse {
+    private int imported;
+    // Username o email ya existentes (en la base de datos o repetidos en el fichero)
+    private int duplicates;
+    // Líneas mal formadas o con campos vacíos
+    private int invalid;
+}
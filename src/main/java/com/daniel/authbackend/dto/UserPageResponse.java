@@ -0,0 +1,14 @@
+package com.daniel.authbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UserPageResponse {
+    private List<UserProfileResponse> users;
+    // Id del último usuario de la página; null si no hay más
+    private Long nextCursor;
+}
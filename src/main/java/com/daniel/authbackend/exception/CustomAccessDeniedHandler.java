@@ -1,21 +1,28 @@
 package com.daniel.authbackend.exception;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.stereotype.Component;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse; // Usa javax.servlet si tu Spring Boot es 2.x
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 @Component
 public class CustomAccessDeniedHandler implements AccessDeniedHandler {
+
+    // Serializado una sola vez; cada 403 solo copia los bytes
+    private static final byte[] BODY = "{\"message\": \"No tienes permisos suficientes para acceder a este recurso\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
     @Override
     public void handle(HttpServletRequest request,
                        HttpServletResponse response,
                        AccessDeniedException accessDeniedException) throws IOException {
-        response.setContentType("application/json");
         response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-        response.getWriter().write("{\"message\": \"No tienes permisos suficientes para acceder a este recurso\"}");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(BODY.length);
+        response.getOutputStream().write(BODY);
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,57 @@
 package com.daniel.authbackend.exception;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.daniel.authbackend.exception.InvalidTokenException.Reason;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse; // Cambia a javax.servlet si usas Spring Boot 2.x
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
 
+/**
+ * 401 con el cuerpo ya serializado en UTF-8: una respuesta por motivo de rechazo
+ * del token (atributo que deja JwtAuthenticationFilter) y otra si no hay token.
+ */
 @Component
 public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint {
+
+    private static final byte[] UNAUTHENTICATED = json("Sesión expirada o no autenticado", "unauthenticated");
+    private static final Map<Reason, byte[]> REJECTED = new EnumMap<>(Reason.class);
+    // RFC 6750: el cliente distingue un token inválido de la falta de credenciales
+    private static final Map<Reason, String> CHALLENGES = new EnumMap<>(Reason.class);
+
+    static {
+        for (Reason reason : Reason.values()) {
+            REJECTED.put(reason, json(reason.message(), reason.code()));
+            CHALLENGES.put(reason, "Bearer error=\"invalid_token\", error_description=\"" + reason.code() + "\"");
+        }
+    }
+
     @Override
     public void commence(HttpServletRequest request,
                          HttpServletResponse response,
                          org.springframework.security.core.AuthenticationException authException) throws IOException {
-        response.setContentType("application/json");
+        Object reason = request.getAttribute(InvalidTokenException.REQUEST_ATTRIBUTE);
+        byte[] body = UNAUTHENTICATED;
+        if (reason instanceof Reason rejected) {
+            body = REJECTED.get(rejected);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, CHALLENGES.get(rejected));
+        } else {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        }
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        response.getWriter().write("{\"message\": \"Sesión expirada o no autenticado\"}");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // Los mensajes son constantes sin comillas ni barras: no hace falta escapar
+    private static byte[] json(String message, String reason) {
+        return ("{\"message\": \"" + message + "\", \"reason\": \"" + reason + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
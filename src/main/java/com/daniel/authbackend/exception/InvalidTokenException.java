@@ -0,0 +1,62 @@
+package com.daniel.authbackend.exception;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Token JWT rechazado. Sin traza ni causa: se lanza en cada petición con un token
+ * caducado o manipulado, así que hay una única instancia compartida por motivo.
+ */
+public class InvalidTokenException extends RuntimeException {
+
+    // Atributo de la petición con el Reason, para que el entry point responda con el motivo
+    public static final String REQUEST_ATTRIBUTE = InvalidTokenException.class.getName() + ".reason";
+
+    public enum Reason {
+        EXPIRED("expired", "Token expirado"),
+        MALFORMED("malformed", "Token mal formado"),
+        BAD_SIGNATURE("bad_signature", "Firma del token no válida"),
+        REVOKED("revoked", "Token revocado"),
+        NOT_ACCESS_TOKEN("not_access_token", "El token no es de acceso"),
+        IDLE("idle", "Sesión expirada por inactividad");
+
+        private final String code;
+        private final String message;
+
+        Reason(String code, String message) {
+            this.code = code;
+            this.message = message;
+        }
+
+        public String code() {
+            return code;
+        }
+
+        public String message() {
+            return message;
+        }
+    }
+
+    private static final Map<Reason, InvalidTokenException> INSTANCES = new EnumMap<>(Reason.class);
+
+    static {
+        for (Reason reason : Reason.values()) {
+            INSTANCES.put(reason, new InvalidTokenException(reason));
+        }
+    }
+
+    private final Reason reason;
+
+    private InvalidTokenException(Reason reason) {
+        super(reason.message(), null, false, false);
+        this.reason = reason;
+    }
+
+    public static InvalidTokenException of(Reason reason) {
+        return INSTANCES.get(reason);
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
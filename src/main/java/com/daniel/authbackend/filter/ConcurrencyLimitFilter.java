@@ -0,0 +1,69 @@
+package com.daniel.authbackend.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acota las peticiones en vuelo con hilos virtuales, donde Tomcat ya no lo hace
+ * con su pool de hilos. Una petición que no consigue permiso en
+ * {@code queueTimeoutMs} recibe 503 con Retry-After en lugar de esperar al pool
+ * de Hikari junto a miles de hilos virtuales más.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] BUSY = "{\"error\":\"Servidor ocupado, inténtalo de nuevo en unos segundos\",\"code\":503}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final Semaphore permits;
+    private final long queueTimeoutMs;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(int maxInFlight, long queueTimeoutMs, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxInFlight);
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.rejected = Counter.builder("http.server.requests.rejected").register(meterRegistry);
+        Gauge.builder("http.server.requests.in-flight", permits, p -> maxInFlight - p.availablePermits())
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(BUSY.length);
+            response.getOutputStream().write(BUSY);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package com.daniel.authbackend.filter;
 
+import com.daniel.authbackend.exception.InvalidTokenException;
+import com.daniel.authbackend.exception.InvalidTokenException.Reason;
+import com.daniel.authbackend.service.ActivityTracker;
+import com.daniel.authbackend.service.TokenRevocationService;
 import com.daniel.authbackend.util.JwtUtil;
-import com.daniel.authbackend.repository.UserRepository;
+import com.daniel.authbackend.util.ParsedToken;
+import com.daniel.authbackend.repository.UserCache;
 import com.daniel.authbackend.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,21 +18,60 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Autentica la petición con el Bearer token. Un token rechazado (caducado, mal
+ * formado, con firma no válida, revocado o de una sesión inactiva) se cuenta en
+ * auth.token.rejected por motivo y se deja el motivo en la petición; si la ruta
+ * no es pública se responde 401 aquí mismo, sin recorrer el resto de la cadena.
+ */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final TokenRevocationService revocationService;
+    private final ActivityTracker activityTracker;
+    private final AuthenticationEntryPoint authenticationEntryPoint;
+    // Rutas con permitAll: un token inválido no impide acceder a ellas
+    private final RequestMatcher publicPaths;
+    // Si es true, el rol se toma del claim firmado sin consultar la base de datos
+    private final boolean trustTokenClaims;
+    // Mide solo el trabajo del filtro, no el resto de la cadena
+    private final Timer filterTimer;
+    private final Map<Reason, Counter> rejections = new EnumMap<>(Reason.class);
 
     // Constructor requerido en SecurityConfig
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserRepository userRepository) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   UserCache userCache,
+                                   TokenRevocationService revocationService,
+                                   ActivityTracker activityTracker,
+                                   AuthenticationEntryPoint authenticationEntryPoint,
+                                   RequestMatcher publicPaths,
+                                   boolean trustTokenClaims,
+                                   MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
-        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.revocationService = revocationService;
+        this.activityTracker = activityTracker;
+        this.authenticationEntryPoint = authenticationEntryPoint;
+        this.publicPaths = publicPaths;
+        this.trustTokenClaims = trustTokenClaims;
+        this.filterTimer = Timer.builder("auth.filter").register(meterRegistry);
+        for (Reason reason : Reason.values()) {
+            rejections.put(reason, Counter.builder("auth.token.rejected")
+                    .tag("reason", reason.code())
+                    .register(meterRegistry));
+        }
     }
 
     @Override
@@ -33,32 +80,77 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain)
             throws ServletException, IOException {
 
-        final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwtToken = null;
+        long start = System.nanoTime();
+        Reason rejection = authenticate(request);
+        filterTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwtToken = authHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwtToken);
-            } catch (Exception e) {
-                // token inválido
+        if (rejection != null) {
+            rejections.get(rejection).increment();
+            request.setAttribute(InvalidTokenException.REQUEST_ATTRIBUTE, rejection);
+            if (!publicPaths.matches(request)) {
+                // Misma respuesta que daría Spring Security, sin crear sus excepciones
+                authenticationEntryPoint.commence(request, response, null);
+                return;
             }
         }
 
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Devuelve el motivo si el token se rechaza, o null si no hay token o es válido.
+     */
+    private Reason authenticate(HttpServletRequest request) {
+        final String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+
+        ParsedToken token;
+        try {
+            // Firma verificada una sola vez por petición
+            token = jwtUtil.parseToken(authHeader.substring(7));
+        } catch (InvalidTokenException e) {
+            return e.getReason();
+        }
+
+        // Los refresh tokens llevan familia: solo sirven en /api/auth/refresh, nunca como Bearer
+        if (token.family() != null) {
+            return Reason.NOT_ACCESS_TOKEN;
+        }
         // Si el usuario existe y no está autenticado en el contexto
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            User user = userRepository.findByUsername(username).orElse(null);
-            if (user != null && !jwtUtil.isTokenExpired(jwtToken)) {
-                // Crea la autoridad usando el rol del usuario
-                SimpleGrantedAuthority authority = new SimpleGrantedAuthority(user.getRole());
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(user.getUsername(), null, Collections.singletonList(authority));
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+        if (token.subject() == null || SecurityContextHolder.getContext().getAuthentication() != null) {
+            return null;
+        }
+        if (token.isExpired()) {
+            return Reason.EXPIRED;
+        }
+        if (revocationService.isRevoked(token)) {
+            return Reason.REVOKED;
+        }
+        // Marca actividad en memoria; false si la sesión superó su sessionTimeout
+        if (!activityTracker.touch(token.subject())) {
+            return Reason.IDLE;
         }
+        String role = resolveRole(token);
+        if (role != null) {
+            // Crea la autoridad usando el rol del usuario
+            SimpleGrantedAuthority authority = new SimpleGrantedAuthority(role);
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(token.subject(), null, Collections.singletonList(authority));
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+        }
+        return null;
+    }
 
-        filterChain.doFilter(request, response);
+    private String resolveRole(ParsedToken token) {
+        if (trustTokenClaims) {
+            // Los refresh tokens no llevan rol: no sirven como token de acceso
+            return token.role();
+        }
+        return userCache.findByUsername(token.subject())
+                .map(User::getRole)
+                .orElse(null);
     }
-}
\ No newline at end of file
+}
@@ -2,9 +2,27 @@ package com.daniel.authbackend.mapper;
 
 import com.daniel.authbackend.model.User;
 import com.daniel.authbackend.dto.LoginResponse;
+import com.daniel.authbackend.dto.UserProfileResponse;
+import com.daniel.authbackend.repository.UserSummary;
 
 public class UserMapper {
     public static LoginResponse toLoginResponse(User user, String token, String refreshToken) {
         return new LoginResponse(token, refreshToken, user.getUsername(), user.getRole());
     }
-}
\ No newline at end of file
+
+    public static UserProfileResponse toProfileResponse(User user) {
+        return toProfileResponse(user.getUsername(), user.getEmail(), user.getRole());
+    }
+
+    public static UserProfileResponse toProfileResponse(UserSummary summary) {
+        return toProfileResponse(summary.getUsername(), summary.getEmail(), summary.getRole());
+    }
+
+    private static UserProfileResponse toProfileResponse(String username, String email, String role) {
+        UserProfileResponse resp = new UserProfileResponse();
+        resp.setUsername(username);
+        resp.setEmail(email);
+        resp.setRole(role);
+        return resp;
+    }
+}
@@ -0,0 +1,49 @@
+package com.daniel.authbackend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Refresh token emitido. El id es el jti del JWT; todos los tokens obtenidos por
+ * rotación a partir del mismo login comparten family.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "family"),
+        @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+})
+public class RefreshToken implements Persistable<String> {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false, length = 36)
+    private String family;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Long expiresAt;
+
+    // true una vez rotado: volver a presentarlo es un reuso
+    @Column(nullable = false)
+    private boolean used;
+
+    // El id se asigna a mano: sin esto save() haría un SELECT antes del INSERT
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+}
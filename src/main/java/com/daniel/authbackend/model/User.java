@@ -2,22 +2,39 @@ package com.daniel.authbackend.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "users")
+// Restricciones con nombre fijo, igual que en db/migration
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_users_username", columnNames = "username"),
+        @UniqueConstraint(name = "uk_users_email", columnNames = "email")
+})
+// Cache de segundo nivel: regiones definidas en hibernate-jcache.conf
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-username")
 public class User {
+    // Secuencia con asignación por bloques: Hibernate reserva 50 ids por consulta
+    // y puede agrupar los INSERT en batches JDBC (IDENTITY lo impide)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    // Id natural mutable (el admin puede cambiarlo): username -> id sale de la cache
+    @NaturalId(mutable = true)
+    @Column(nullable = false)
     private String username;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     @Column(nullable = false)
@@ -26,6 +43,9 @@ public class User {
     @Column(nullable = false)
     private String role; // Siempre será USER por defecto
 
+    // Lo escribe ActivityTracker por JDBC, sin pasar por la cache de segundo nivel:
+    // el valor cacheado puede estar atrasado, así que un save() no debe sobrescribirlo
+    @Column(updatable = false)
     private Long lastActivity;
     private Long sessionTimeout;
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.daniel.authbackend.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom con los usernames existentes. Si dice que un username no
+ * existe es seguro (no hay falsos negativos), así que el login de un usuario
+ * desconocido se rechaza sin consultar la base de datos.
+ *
+ * <p>Se siembra desde la tabla users al arrancar y {@link #add} lo mantiene al
+ * día en registros y cambios de username. Un Bloom no admite borrados: los
+ * usuarios eliminados siguen dando positivo (solo cuesta una consulta) hasta la
+ * siguiente reconstrucción periódica. Hasta terminar la primera siembra todo da
+ * positivo.</p>
+ *
+ * <p>Solo vale con una única instancia, por eso está desactivado por defecto
+ * ({@code user.bloom.enabled}). Cada réplica tiene su propio filtro: un registro o
+ * una importación hechos en otra no se ven aquí hasta la reconstrucción, y mientras
+ * tanto el login de ese usuario fallaría como si la contraseña fuera incorrecta.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnownUsernames {
+
+    private static final String USERNAMES_SQL = "select username from users";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${user.bloom.enabled:false}")
+    private boolean enabled;
+
+    @Value("${user.bloom.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${user.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // null hasta la primera siembra
+    private volatile BloomFilter current;
+    // Filtro en construcción: recibe también las altas mientras se recorre la tabla
+    private volatile BloomFilter building;
+
+    public boolean mightContain(String username) {
+        BloomFilter filter = current;
+        return filter == null || filter.mightContain(username);
+    }
+
+    public void add(String username) {
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(username);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(username);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        rebuild();
+        meterRegistry.gauge("users.bloom.size", this, k -> k.current != null ? k.current.count() : 0);
+    }
+
+    @Scheduled(initialDelayString = "${user.bloom.rebuild-interval.ms:600000}",
+            fixedDelayString = "${user.bloom.rebuild-interval.ms:600000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long previous = current != null ? current.count() : 0;
+        BloomFilter next = new BloomFilter(Math.max(expectedUsers, previous * 2), falsePositiveRate);
+        building = next;
+        try {
+            // Fetch size por sentencia: el JdbcTemplate es compartido
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(USERNAMES_SQL);
+                ps.setFetchSize(1000);
+                return ps;
+            }, rs -> {
+                next.put(rs.getString(1));
+            });
+            current = next;
+            log.info("Filtro de usernames reconstruido con {} usuarios", next.count());
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * Bloom filter concurrente sobre un bitset de longs; las escrituras son OR
+     * atómicos, así que no necesita locks.
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashes;
+        private final AtomicLong count = new AtomicLong();
+
+        BloomFilter(long expected, double fpp) {
+            long m = (long) Math.ceil(-expected * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6));
+            this.bitCount = (long) bits.length() << 6;
+            this.hashes = Math.max(1, (int) Math.round((double) m / expected * Math.log(2)));
+        }
+
+        void put(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word = bits.get(index);
+                while ((word & mask) == 0 && !bits.compareAndSet(index, word, word | mask)) {
+                    word = bits.get(index);
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        private static long hash(String value) {
+            long h = 0xCBF29CE484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001B3L;
+            }
+            return mix(h);
+        }
+
+        // Finalizador de MurmurHash3: reparte bien los bits de FNV
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB93FE53A87A5L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.daniel.authbackend.repository;
+
+import com.daniel.authbackend.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    // Marca el token como rotado en una sola sentencia por PK; 0 si ya estaba usado,
+    // no existe o pertenece a otro usuario
+    @Modifying
+    @Transactional
+    @Query("update RefreshToken t set t.used = true where t.id = :id and t.userId = :userId and t.used = false")
+    int markUsed(@Param("id") String id, @Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshToken t where t.family = :family")
+    int deleteByFamily(@Param("family") String family);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshToken t where t.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshToken t where t.userId in :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
+}
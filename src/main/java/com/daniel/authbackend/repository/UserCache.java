@@ -0,0 +1,87 @@
+package com.daniel.authbackend.repository;
+
+import com.daniel.authbackend.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache de lectura delante de {@link UserRepository} para las búsquedas por
+ * username (login, filtro JWT, perfil). Guarda instantáneas y devuelve siempre una copia, de modo
+ * que modificar el usuario devuelto nunca altera lo que ven otros hilos.
+ * Toda escritura sobre un usuario debe llamar a {@link #evict(User)}.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${user.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${user.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${user.cache.ttl.ms:60000}")
+    private long ttlMs;
+
+    private Cache<String, User> byUsername;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        byUsername = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byUsername, "users.by-username");
+    }
+
+    public Optional<User> findByUsername(String username) {
+        if (byUsername == null) {
+            return userRepository.findByUsername(username);
+        }
+        // Carga atómica por clave: un evict que llega durante la consulta espera a que
+        // termine y la borra después, así que nunca queda un usuario anterior al evict.
+        // Los inexistentes no se cachean: un registro posterior debe verse al instante
+        User cached = byUsername.get(username, u -> userRepository.findByUsername(u).map(UserCache::copy).orElse(null));
+        return Optional.ofNullable(cached).map(UserCache::copy);
+    }
+
+    /**
+     * Consulta solo la cache, sin ir a la base de datos si no está.
+     */
+    public Optional<User> peekByUsername(String username) {
+        if (byUsername == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byUsername.getIfPresent(username)).map(UserCache::copy);
+    }
+
+    public void evict(User user) {
+        evict(user.getUsername());
+    }
+
+    public void evict(String username) {
+        if (byUsername != null && username != null) {
+            byUsername.invalidate(username);
+        }
+    }
+
+    private static User copy(User user) {
+        return user.toBuilder().build();
+    }
+}
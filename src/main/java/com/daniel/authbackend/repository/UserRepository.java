@@ -1,13 +1,60 @@
 package com.daniel.authbackend.repository;
 
 import com.daniel.authbackend.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsername(String username);
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+// findByUsername va por id natural (UserRepositoryImpl)
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     Optional<User> findByEmail(String email);
+
+    // Cache de consultas: se invalida sola en cuanto cambia la tabla users
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByUsername(String username);
-    boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    // Sin distinguir mayúsculas, como el índice único ux_users_email_lower
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select count(u) > 0 from User u where lower(u.email) = lower(:email)")
+    boolean existsByEmail(@Param("email") String email);
+
+    // Proyecciones cerradas: el SELECT solo incluye las columnas de UserSummary
+    Optional<UserSummary> findSummaryByUsername(String username);
+    List<UserSummary> findAllByOrderByIdAsc();
+    List<UserSummary> findSummariesByUsernameIn(Collection<String> usernames);
+
+    // Deduplicación de importaciones: una sola consulta por lote; emails en minúsculas
+    @Query("select u.username as username, u.email as email from User u " +
+            "where u.username in :usernames or lower(u.email) in :emails")
+    List<UserSummary> findConflicts(@Param("usernames") Collection<String> usernames,
+                                    @Param("emails") Collection<String> emails);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.role = :role where u.id in :ids")
+    int updateRole(@Param("ids") Collection<Long> ids, @Param("role") String role);
+
+    // Paginación por keyset: usa el índice de la PK en lugar de OFFSET
+    @Query("select u.id as id, u.username as username, u.email as email, u.role as role from User u " +
+            "where u.id > :afterId and (:role is null or u.role = :role) order by u.id")
+    List<UserSummary> findSummariesAfter(@Param("afterId") long afterId, @Param("role") String role, Pageable pageable);
+
+    // Cursor de base de datos: debe consumirse dentro de una transacción
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select u.id as id, u.username as username, u.email as email, u.role as role from User u " +
+            "where (:role is null or u.role = :role) order by u.id")
+    Stream<UserSummary> streamSummaries(@Param("role") String role);
+}
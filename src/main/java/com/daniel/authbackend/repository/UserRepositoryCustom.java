@@ -0,0 +1,13 @@
+package com.daniel.authbackend.repository;
+
+import com.daniel.authbackend.model.User;
+
+import java.util.Optional;
+
+/**
+ * Búsquedas de {@link UserRepository} implementadas a mano en
+ * {@link UserRepositoryImpl}; sustituyen a las consultas derivadas.
+ */
+public interface UserRepositoryCustom {
+    Optional<User> findByUsername(String username);
+}
@@ -0,0 +1,12 @@
+package com.daniel.authbackend.repository;
+
+/**
+ * Proyección de solo lectura para los listados: nunca carga el password ni
+ * entidades gestionadas.
+ */
+public interface UserSummary {
+    Long getId();
+    String getUsername();
+    String getEmail();
+    String getRole();
+}
@@ -0,0 +1,134 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.model.User;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seguimiento de la actividad de cada sesión en memoria. El filtro JWT marca la
+ * actividad en cada petición sin tocar la base de datos; un volcado periódico
+ * escribe los lastActivity pendientes con un único batch JDBC. La misma
+ * estructura sirve para rechazar sesiones inactivas más de su sessionTimeout.
+ */
+@Service
+@RequiredArgsConstructor
+public class ActivityTracker {
+
+    private static final String UPDATE_SQL = "update users set last_activity = ? where username = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${user.last-activity.batched:false}")
+    private boolean batched;
+
+    @Value("${session.idle-timeout.enforced:true}")
+    private boolean enforceIdleTimeout;
+
+    // Para sesiones que no conocemos (p. ej. tras un reinicio)
+    @Value("${session.default-timeout.ms:900000}")
+    private long defaultTimeout;
+
+    @Value("${jwt.refresh.expiration.ms}")
+    private long refreshExpiration;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private static final class Session {
+        final long timeout;
+        volatile long lastSeen;
+        // Último valor escrito en la base de datos
+        volatile long lastFlushed;
+
+        Session(long timeout, long lastSeen, long lastFlushed) {
+            this.timeout = timeout;
+            this.lastSeen = lastSeen;
+            this.lastFlushed = lastFlushed;
+        }
+    }
+
+    /**
+     * Inicia (o reinicia) la sesión tras un login correcto.
+     */
+    public void startSession(User user) {
+        long now = System.currentTimeMillis();
+        long timeout = user.getSessionTimeout() != null ? user.getSessionTimeout() : defaultTimeout;
+        if (batched) {
+            sessions.put(user.getUsername(), new Session(timeout, now, 0L));
+        } else {
+            sessions.put(user.getUsername(), new Session(timeout, now, now));
+            // Por JDBC, igual que el volcado: un UPDATE JPQL masivo vaciaría la
+            // región de User de la cache de segundo nivel en cada login
+            jdbcTemplate.update(UPDATE_SQL, now, user.getUsername());
+        }
+    }
+
+    /**
+     * Marca actividad de la sesión. Devuelve false si lleva inactiva más de su
+     * timeout; en ese caso no se actualiza y hace falta un nuevo login.
+     */
+    public boolean touch(String username) {
+        long now = System.currentTimeMillis();
+        Session session = sessions.computeIfAbsent(username, u -> new Session(defaultTimeout, now, 0L));
+        if (isIdle(session, now)) {
+            return false;
+        }
+        if (session.lastSeen < now) {
+            session.lastSeen = now;
+        }
+        return true;
+    }
+
+    /**
+     * Igual que {@link #touch} pero sin marcar actividad ni crear la sesión: para
+     * consultas de terceros (introspección) que no son uso del propio usuario.
+     */
+    public boolean isIdle(String username) {
+        Session session = sessions.get(username);
+        return session != null && isIdle(session, System.currentTimeMillis());
+    }
+
+    private boolean isIdle(Session session, long now) {
+        return enforceIdleTimeout && now - session.lastSeen > session.timeout;
+    }
+
+    public void endSession(String username) {
+        sessions.remove(username);
+    }
+
+    @Scheduled(fixedDelayString = "${user.last-activity.flush-interval.ms:5000}")
+    @PreDestroy
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>();
+        List<Session> flushed = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            long lastSeen = session.lastSeen;
+            if (lastSeen > session.lastFlushed) {
+                batch.add(new Object[]{lastSeen, entry.getKey()});
+                flushed.add(session);
+                values.add(lastSeen);
+            } else if (now - lastSeen > session.timeout + refreshExpiration) {
+                // Ya no puede quedar ningún token vivo de esta sesión
+                sessions.remove(entry.getKey(), session);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+        for (int i = 0; i < flushed.size(); i++) {
+            flushed.get(i).lastFlushed = values.get(i);
+        }
+    }
+}
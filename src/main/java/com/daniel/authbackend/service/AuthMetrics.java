@@ -0,0 +1,52 @@
+package com.daniel.authbackend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Timers de las operaciones de {@link UserServiceImpl} por resultado
+ * (métrica auth.operation, tags operation y outcome). Nunca se etiqueta por
+ * usuario para mantener acotada la cardinalidad.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthMetrics {
+
+    public enum Outcome {
+        SUCCESS, BAD_PASSWORD, USER_NOT_FOUND, DUPLICATE, EXPIRED, REVOKED, THROTTLED, INVALID_TOKEN,
+        // Fallo inesperado (p. ej. violación de integridad que no es un duplicado)
+        ERROR;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void success(Timer.Sample sample, String operation) {
+        stop(sample, operation, Outcome.SUCCESS);
+    }
+
+    /**
+     * Registra el fallo y devuelve la excepción para poder escribir
+     * {@code throw authMetrics.failure(...)}.
+     */
+    public <E extends RuntimeException> E failure(Timer.Sample sample, String operation, Outcome outcome, E exception) {
+        stop(sample, operation, outcome);
+        return exception;
+    }
+
+    private void stop(Timer.Sample sample, String operation, Outcome outcome) {
+        sample.stop(Timer.builder("auth.operation")
+                .tag("operation", operation)
+                .tag("outcome", outcome.tag)
+                .register(meterRegistry));
+    }
+}
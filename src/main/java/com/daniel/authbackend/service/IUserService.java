@@ -2,16 +2,25 @@ package com.daniel.authbackend.service;
 
 import com.daniel.authbackend.dto.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface IUserService {
-    LoginResponse login(LoginRequest request);
+    LoginResponse login(LoginRequest request, String clientIp);
     RegisterResponse register(RegisterRequest request);
     LoginResponse refreshToken(RefreshRequest request);
+    void logout(RefreshRequest request, String accessToken);
     UserProfileResponse getProfile(String username);
     UserProfileResponse updateProfile(String username, UpdateUserRequest request);
     void deleteUser(String username);
     void changePassword(String username, ChangePasswordRequest request);
     List<UserProfileResponse> getAllUsers();
+    UserPageResponse getUsersPage(Long afterId, Integer size, String role);
+    void exportUsers(String role, OutputStream out) throws IOException;
     void promoteToAdmin(String username);
+    BatchOperationResponse promoteToAdmin(List<String> usernames);
+    BatchOperationResponse deleteUsers(List<String> usernames);
+    UserImportResponse importUsers(InputStream in, boolean csv) throws IOException;
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.exception.TooManyAttemptsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limita los intentos de login por username y por IP antes de tocar la base de
+ * datos o BCrypt. Cada clave tiene un token bucket sin locks: el estado es un
+ * único long (instante teórico de la próxima llegada, algoritmo GCRA) que se
+ * actualiza con CAS. Además, tras varios fallos seguidos un username queda
+ * bloqueado un tiempo que se duplica con cada fallo adicional, pero solo desde
+ * la IP que falla: si no, cualquiera podría bloquear a la víctima enviando
+ * contraseñas erróneas con su username.
+ *
+ * <p>La IP es la del socket: detrás de un proxy o balanceador hace falta
+ * {@code server.forward-headers-strategy} (activo en el perfil prod), o todos
+ * los clientes compartirían un bucket.</p>
+ *
+ * <p>Las claves viven en caches de Caffeine acotadas y se descartan cuando
+ * llevan inactivas más que el tiempo de recarga completa del bucket.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class LoginThrottle {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.login-throttle.max-keys:100000}")
+    private long maxKeys;
+
+    @Value("${security.login-throttle.username.capacity:5}")
+    private int usernameCapacity;
+
+    @Value("${security.login-throttle.username.refill.ms:12000}")
+    private long usernameRefillMs;
+
+    @Value("${security.login-throttle.ip.capacity:50}")
+    private int ipCapacity;
+
+    @Value("${security.login-throttle.ip.refill.ms:200}")
+    private long ipRefillMs;
+
+    @Value("${security.login-throttle.lockout.threshold:5}")
+    private int lockoutThreshold;
+
+    @Value("${security.login-throttle.lockout.base.ms:30000}")
+    private long lockoutBaseMs;
+
+    @Value("${security.login-throttle.lockout.max.ms:900000}")
+    private long lockoutMaxMs;
+
+    // Reemplazable en tests
+    private Clock clock = Clock.systemUTC();
+
+    private Cache<String, Entry> byUsername;
+    private Cache<String, Entry> byIp;
+    // Fallos seguidos y bloqueo por username + IP
+    private Cache<String, Entry> lockouts;
+    private Counter rejectedUsername;
+    private Counter rejectedIp;
+    private Counter rejectedLockout;
+
+    private static final class Entry {
+        // GCRA: instante (ms) a partir del cual el bucket vuelve a estar lleno menos un token
+        final AtomicLong theoreticalArrival = new AtomicLong();
+        final AtomicInteger failures = new AtomicInteger();
+        volatile long lockedUntil;
+    }
+
+    @PostConstruct
+    void init() {
+        byUsername = newCache(usernameCapacity * usernameRefillMs);
+        byIp = newCache(ipCapacity * ipRefillMs);
+        lockouts = newCache(lockoutMaxMs);
+        rejectedUsername = rejected("username");
+        rejectedIp = rejected("ip");
+        rejectedLockout = rejected("lockout");
+        meterRegistry.gauge("auth.login.throttle.keys", this,
+                t -> t.byUsername.estimatedSize() + t.byIp.estimatedSize() + t.lockouts.estimatedSize());
+    }
+
+    private Cache<String, Entry> newCache(long idleMs) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMillis(idleMs))
+                .build();
+    }
+
+    private Counter rejected(String reason) {
+        return Counter.builder("auth.login.throttled")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consume un intento para el username y la IP, o lanza
+     * {@link TooManyAttemptsException} si alguno de los dos se ha agotado.
+     */
+    public void acquire(String username, String ip) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.millis();
+        if (username != null) {
+            Entry lockout = lockouts.getIfPresent(lockoutKey(username, ip));
+            long lockedFor = lockout != null ? lockout.lockedUntil - now : 0;
+            if (lockedFor > 0) {
+                rejectedLockout.increment();
+                throw tooMany(lockedFor);
+            }
+            long wait = tryConsume(byUsername.get(username, k -> new Entry()), now, usernameCapacity, usernameRefillMs);
+            if (wait > 0) {
+                rejectedUsername.increment();
+                throw tooMany(wait);
+            }
+        }
+        if (ip != null) {
+            long wait = tryConsume(byIp.get(ip, k -> new Entry()), now, ipCapacity, ipRefillMs);
+            if (wait > 0) {
+                rejectedIp.increment();
+                throw tooMany(wait);
+            }
+        }
+    }
+
+    /**
+     * Registra un login fallido: a partir de {@code lockout.threshold} fallos
+     * seguidos bloquea el username desde esa IP base·2^(fallos - umbral), con tope.
+     */
+    public void onFailure(String username, String ip) {
+        if (!enabled || username == null) {
+            return;
+        }
+        Entry lockout = lockouts.get(lockoutKey(username, ip), k -> new Entry());
+        int excess = lockout.failures.incrementAndGet() - lockoutThreshold;
+        if (excess >= 0) {
+            long duration = Math.min(lockoutMaxMs, lockoutBaseMs << Math.min(excess, 30));
+            lockout.lockedUntil = clock.millis() + duration;
+        }
+    }
+
+    public void onSuccess(String username, String ip) {
+        if (!enabled || username == null) {
+            return;
+        }
+        lockouts.invalidate(lockoutKey(username, ip));
+    }
+
+    // \0 no puede aparecer en una IP: separa sin ambigüedad
+    private static String lockoutKey(String username, String ip) {
+        return ip != null ? username + '\0' + ip : username;
+    }
+
+    /**
+     * Devuelve 0 si se consumió un token o los ms que faltan para el siguiente.
+     */
+    private static long tryConsume(Entry entry, long now, int capacity, long refillMs) {
+        long burst = (capacity - 1) * refillMs;
+        while (true) {
+            long current = entry.theoreticalArrival.get();
+            long tat = Math.max(current, now);
+            long wait = tat - burst - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (entry.theoreticalArrival.compareAndSet(current, tat + refillMs)) {
+                return 0;
+            }
+        }
+    }
+
+    private static TooManyAttemptsException tooMany(long waitMs) {
+        return new TooManyAttemptsException("Demasiados intentos de inicio de sesión",
+                Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMs + 999)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.exception.UserNotFoundException;
+import com.daniel.authbackend.model.RefreshToken;
+import com.daniel.authbackend.model.User;
+import com.daniel.authbackend.repository.RefreshTokenRepository;
+import com.daniel.authbackend.util.JwtUtil;
+import com.daniel.authbackend.util.ParsedToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Refresh tokens persistidos con rotación. Cada uso emite un token nuevo de la
+ * misma familia y marca el anterior como usado; si un token ya usado vuelve a
+ * presentarse (robado y reutilizado) se revoca la familia entera.
+ *
+ * <p>La familia viaja firmada en el propio JWT, así que rotar cuesta un único
+ * UPDATE por clave primaria y un INSERT, sin SELECT previo.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final String PURGE_SQL = "delete from refresh_tokens where id in " +
+            "(select id from refresh_tokens where expires_at < ? limit ?)";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtUtil jwtUtil;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${jwt.refresh.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    /**
+     * Emite el primer refresh token de una familia nueva (login).
+     */
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consume un refresh token ya verificado y devuelve el siguiente de su familia.
+     */
+    // La revocación de la familia debe persistir aunque se lance la excepción
+    @Transactional(noRollbackFor = UserNotFoundException.class)
+    public String rotate(ParsedToken token, User user) {
+        if (token.id() == null || token.family() == null) {
+            throw new UserNotFoundException("Refresh token no válido");
+        }
+        if (refreshTokenRepository.markUsed(token.id(), user.getId()) == 0) {
+            // Ya usado, revocado o de otro usuario (username reasignado tras un cambio):
+            // cualquier token vivo de la familia queda comprometido
+            refreshTokenRepository.deleteByFamily(token.family());
+            throw new UserNotFoundException("Refresh token revocado");
+        }
+        return issue(user, token.family());
+    }
+
+    /**
+     * Revoca la familia del token (logout de esa sesión).
+     */
+    public void revoke(ParsedToken token) {
+        if (token.family() != null) {
+            refreshTokenRepository.deleteByFamily(token.family());
+        }
+    }
+
+    /**
+     * Revoca todos los refresh tokens del usuario (cambio de contraseña o de username, borrado).
+     */
+    public void revokeAll(User user) {
+        refreshTokenRepository.deleteByUserId(user.getId());
+    }
+
+    public void revokeAll(Collection<Long> userIds) {
+        refreshTokenRepository.deleteByUserIdIn(userIds);
+    }
+
+    private String issue(User user, String family) {
+        String id = UUID.randomUUID().toString();
+        long expiresAt = System.currentTimeMillis() + jwtUtil.getRefreshExpiration();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .id(id)
+                .family(family)
+                .userId(user.getId())
+                .expiresAt(expiresAt)
+                .build());
+        return jwtUtil.generateRefreshToken(user.getUsername(), id, family, expiresAt);
+    }
+
+    /**
+     * Borra los tokens expirados por lotes para no bloquear la tabla con un
+     * único DELETE enorme.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval.ms:3600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, now, purgeBatchSize);
+        } while (deleted == purgeBatchSize);
+    }
+}
@@ -0,0 +1,76 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.dto.IntrospectionResponse;
+import com.daniel.authbackend.exception.InvalidTokenException;
+import com.daniel.authbackend.util.JwtUtil;
+import com.daniel.authbackend.util.ParsedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Introspección de tokens de acceso para otros servicios. Solo usa la
+ * verificación de {@link JwtUtil} (con su cache), la lista de revocados y las
+ * sesiones de {@link ActivityTracker} en memoria: nunca consulta la tabla de usuarios.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenIntrospectionService {
+
+    private static final String ACCESS_TOKEN = "access_token";
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService revocationService;
+    private final ActivityTracker activityTracker;
+    private final MeterRegistry meterRegistry;
+
+    private Counter activeCounter;
+    private Counter inactiveCounter;
+
+    @PostConstruct
+    void init() {
+        activeCounter = Counter.builder("auth.introspection").tag("active", "true").register(meterRegistry);
+        inactiveCounter = Counter.builder("auth.introspection").tag("active", "false").register(meterRegistry);
+    }
+
+    public IntrospectionResponse introspect(String token) {
+        ParsedToken parsed = verify(token);
+        if (parsed == null) {
+            inactiveCounter.increment();
+            return IntrospectionResponse.INACTIVE;
+        }
+        activeCounter.increment();
+        return new IntrospectionResponse(true,
+                parsed.subject(),
+                parsed.role(),
+                TimeUnit.MILLISECONDS.toSeconds(parsed.expiresAt()),
+                TimeUnit.MILLISECONDS.toSeconds(parsed.issuedAt()),
+                parsed.id(),
+                ACCESS_TOKEN);
+    }
+
+    private ParsedToken verify(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        ParsedToken parsed;
+        try {
+            parsed = jwtUtil.parseToken(token);
+        } catch (InvalidTokenException e) {
+            return null;
+        }
+        // Los refresh tokens (con familia) no son tokens de acceso: su validez
+        // depende de la rotación en base de datos. Una sesión inactiva se rechaza
+        // igual que en el filtro, sin contar la consulta como actividad
+        if (parsed.family() != null || parsed.role() == null
+                || parsed.isExpired() || revocationService.isRevoked(parsed)
+                || activityTracker.isIdle(parsed.subject())) {
+            return null;
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,226 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.util.ParsedToken;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Revocación de tokens sin consultar la base de datos. Guarda, por usuario, el
+ * instante a partir del cual sus tokens de acceso anteriores dejan de valer
+ * (cambio de rol, borrado, cambio de username o de contraseña), y una lista de
+ * jti revocados individualmente (logout).
+ *
+ * <p>La lista de jti se reparte en cubetas por instante de expiración dentro de
+ * un anillo que cubre la vida de un token de acceso: la consulta es O(1) y sin
+ * reservar memoria, y una cubeta entera se descarta cuando expiran sus tokens.
+ * Si {@code jwt.revocation.snapshot-file} está definido, el estado se vuelca a
+ * disco periódicamente y al parar, y se recarga al arrancar.</p>
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    @Value("${jwt.access.expiration.ms}")
+    private long accessExpiration;
+
+    @Value("${jwt.revocation.bucket.ms:60000}")
+    private long bucketMs;
+
+    @Value("${jwt.revocation.snapshot-file:}")
+    private String snapshotFile;
+
+    // username -> primer iat (ms) que se sigue aceptando
+    private final Map<String, Long> invalidatedUsers = new ConcurrentHashMap<>();
+
+    // Cubeta i: jti que expiran en [epoch * bucketMs, (epoch + 1) * bucketMs)
+    private AtomicReferenceArray<Bucket> deniedTokens;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // Reemplazable en tests
+    private Clock clock = Clock.systemUTC();
+
+    private static final class Bucket {
+        final long epoch;
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        // Una cubeta más para el tramo parcial y otra para el token recién emitido
+        deniedTokens = new AtomicReferenceArray<>((int) (accessExpiration / bucketMs) + 2);
+        loadSnapshot();
+    }
+
+    /**
+     * Invalida todos los tokens emitidos hasta ahora para el usuario. Se compara
+     * con el claim iat_ms (milisegundos): un token emitido en el mismo milisegundo
+     * también queda invalidado, pero uno emitido justo después ya vale.
+     */
+    public void invalidateUser(String username) {
+        long notBefore = clock.millis() + 1;
+        invalidatedUsers.merge(username, notBefore, Math::max);
+        dirty.set(true);
+    }
+
+    /**
+     * Revoca un único token de acceso hasta su expiración.
+     */
+    public void denyToken(ParsedToken token) {
+        if (token.id() != null && !token.isExpired()) {
+            deny(token.id(), token.expiresAt());
+        }
+    }
+
+    private void deny(String id, long expiresAt) {
+        if (expiresAt > clock.millis() + accessExpiration + bucketMs) {
+            // Solo tokens de acceso: uno más largo no cabe en el anillo
+            return;
+        }
+        long epoch = expiresAt / bucketMs;
+        int slot = (int) (epoch % deniedTokens.length());
+        while (true) {
+            Bucket bucket = deniedTokens.get(slot);
+            if (bucket != null && bucket.epoch == epoch) {
+                bucket.ids.add(id);
+                break;
+            }
+            if (bucket != null && bucket.epoch > epoch) {
+                // La cubeta ya se reutilizó para una ventana posterior: el token expiró
+                return;
+            }
+            Bucket fresh = new Bucket(epoch);
+            fresh.ids.add(id);
+            if (deniedTokens.compareAndSet(slot, bucket, fresh)) {
+                break;
+            }
+        }
+        dirty.set(true);
+    }
+
+    public boolean isRevoked(ParsedToken token) {
+        Long notBefore = invalidatedUsers.get(token.subject());
+        if (notBefore != null && token.issuedAt() < notBefore) {
+            return true;
+        }
+        if (token.id() == null) {
+            return false;
+        }
+        long epoch = token.expiresAt() / bucketMs;
+        Bucket bucket = deniedTokens.get((int) (epoch % deniedTokens.length()));
+        return bucket != null && bucket.epoch == epoch && bucket.ids.contains(token.id());
+    }
+
+    // Pasado el tiempo de vida del token de acceso ya no queda ninguno anterior
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval.ms:60000}")
+    void purgeExpired() {
+        long now = clock.millis();
+        long cutoff = now - accessExpiration;
+        if (invalidatedUsers.values().removeIf(notBefore -> notBefore < cutoff)) {
+            dirty.set(true);
+        }
+        for (int i = 0; i < deniedTokens.length(); i++) {
+            Bucket bucket = deniedTokens.get(i);
+            if (bucket != null && (bucket.epoch + 1) * bucketMs <= now
+                    && deniedTokens.compareAndSet(i, bucket, null)) {
+                dirty.set(true);
+            }
+        }
+        if (dirty.get()) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    void writeSnapshot() {
+        if (snapshotFile.isBlank() || !dirty.getAndSet(false)) {
+            return;
+        }
+        Path target = Path.of(snapshotFile);
+        try {
+            Path parent = target.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                Map<String, Long> users = Map.copyOf(invalidatedUsers);
+                out.writeInt(users.size());
+                for (Map.Entry<String, Long> entry : users.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+                for (int i = 0; i < deniedTokens.length(); i++) {
+                    Bucket bucket = deniedTokens.get(i);
+                    if (bucket == null) {
+                        continue;
+                    }
+                    // Al recargar basta con el final de la cubeta como expiración
+                    long expiresAt = (bucket.epoch + 1) * bucketMs - 1;
+                    for (String id : bucket.ids) {
+                        out.writeBoolean(true);
+                        out.writeUTF(id);
+                        out.writeLong(expiresAt);
+                    }
+                }
+                out.writeBoolean(false);
+            }
+            // Sustitución atómica: nunca queda un fichero a medio escribir
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.error("No se pudo guardar la lista de tokens revocados en {}", target, e);
+        }
+    }
+
+    private void loadSnapshot() {
+        if (snapshotFile.isBlank() || !Files.exists(Path.of(snapshotFile))) {
+            return;
+        }
+        long now = clock.millis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Path.of(snapshotFile))))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Versión desconocida en {}; se ignora", snapshotFile);
+                return;
+            }
+            int users = in.readInt();
+            for (int i = 0; i < users; i++) {
+                String username = in.readUTF();
+                long notBefore = in.readLong();
+                if (notBefore >= now - accessExpiration) {
+                    invalidatedUsers.merge(username, notBefore, Math::max);
+                }
+            }
+            while (in.readBoolean()) {
+                String id = in.readUTF();
+                long expiresAt = in.readLong();
+                if (expiresAt >= now) {
+                    deny(id, expiresAt);
+                }
+            }
+            dirty.set(false);
+        } catch (IOException e) {
+            log.error("No se pudo leer la lista de tokens revocados de {}", snapshotFile, e);
+        }
+    }
+}
@@ -2,138 +2,505 @@ package com.daniel.authbackend.service;
 
 import com.daniel.authbackend.dto.*;
 import com.daniel.authbackend.exception.*;
+import com.daniel.authbackend.mapper.UserMapper;
 import com.daniel.authbackend.model.User;
+import com.daniel.authbackend.repository.KnownUsernames;
+import com.daniel.authbackend.repository.UserCache;
 import com.daniel.authbackend.repository.UserRepository;
+import com.daniel.authbackend.repository.UserSummary;
+import com.daniel.authbackend.util.BoundedPasswordEncoder;
 import com.daniel.authbackend.util.JwtUtil;
+import com.daniel.authbackend.util.ParsedToken;
+import io.micrometer.core.instrument.Timer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.daniel.authbackend.service.AuthMetrics.Outcome.*;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements IUserService {
 
+    private static final String BAD_CREDENTIALS = "Usuario o contraseña incorrectos";
+
     private final UserRepository userRepository;
+    private final UserCache userCache;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationService revocationService;
+    private final RefreshTokenService refreshTokenService;
+    private final ActivityTracker activityTracker;
+    private final LoginThrottle loginThrottle;
+    private final KnownUsernames knownUsernames;
+    private final ObjectMapper objectMapper;
+    private final AuthMetrics authMetrics;
+
+    @Value("${users.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${users.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${users.import.chunk-size:500}")
+    private int importChunkSize;
+
+    // Hash con el mismo coste que los reales, para comparar cuando el usuario no existe
+    private String dummyPasswordHash;
+
+    @PostConstruct
+    void init() {
+        dummyPasswordHash = passwordEncoder.encode(UUID.randomUUID().toString());
+    }
 
     @Override
-    public LoginResponse login(LoginRequest request) {
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
+    public LoginResponse login(LoginRequest request, String clientIp) {
+        Timer.Sample sample = authMetrics.start();
+        // Antes de cualquier consulta o BCrypt: un ataque de fuerza bruta se corta aquí
+        try {
+            loginThrottle.acquire(request.getUsername(), clientIp);
+        } catch (TooManyAttemptsException e) {
+            throw authMetrics.failure(sample, "login", THROTTLED, e);
+        }
+        // El filtro de Bloom descarta usernames inexistentes sin ir a la base de datos
+        User user = knownUsernames.mightContain(request.getUsername())
+                ? userCache.findByUsername(request.getUsername()).orElse(null)
+                : null;
+        if (user == null) {
+            // Mismo coste BCrypt y mismo mensaje que una contraseña incorrecta: no se
+            // puede distinguir por tiempo ni por respuesta si el usuario existe
+            passwordEncoder.matches(request.getPassword(), dummyPasswordHash);
+            loginThrottle.onFailure(request.getUsername(), clientIp);
+            throw authMetrics.failure(sample, "login", USER_NOT_FOUND, new UserNotFoundException(BAD_CREDENTIALS));
+        }
         if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new UserNotFoundException("Contraseña incorrecta");
+            loginThrottle.onFailure(request.getUsername(), clientIp);
+            throw authMetrics.failure(sample, "login", BAD_PASSWORD, new UserNotFoundException(BAD_CREDENTIALS));
         }
-        user.setLastActivity(System.currentTimeMillis());
-        userRepository.save(user);
+        loginThrottle.onSuccess(request.getUsername(), clientIp);
+        activityTracker.startSession(user);
 
         String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
-        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername());
-        return new LoginResponse(token, refreshToken, user.getUsername(), user.getRole());
+        String refreshToken = refreshTokenService.issue(user);
+        authMetrics.success(sample, "login");
+        return UserMapper.toLoginResponse(user, token, refreshToken);
     }
 
     @Override
     public RegisterResponse register(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new UserAlreadyExistsException("El usuario ya existe");
+        Timer.Sample sample = authMetrics.start();
+        User user = newUser(request, passwordEncoder.encode(request.getPassword()));
+        // Un único INSERT: las restricciones únicas deciden si está duplicado, sin
+        // consultas previas y sin carrera entre dos registros simultáneos
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw integrityViolation(sample, "register", e);
+        }
+        knownUsernames.add(user.getUsername());
+        authMetrics.success(sample, "register");
+        return new RegisterResponse("Usuario registrado correctamente", user.getUsername(), user.getRole());
+    }
+
+    /**
+     * Registra y devuelve la excepción a lanzar: username o email duplicados dan
+     * un 409 con su mensaje; cualquier otra violación (NOT NULL, longitud...) se
+     * relanza tal cual y cuenta como error, no como duplicado.
+     */
+    private RuntimeException integrityViolation(Timer.Sample sample, String operation,
+                                                DataIntegrityViolationException e) {
+        UserAlreadyExistsException duplicate = duplicateUser(e);
+        if (duplicate == null) {
+            return authMetrics.failure(sample, operation, ERROR, e);
         }
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new UserAlreadyExistsException("El correo ya está en uso");
+        return authMetrics.failure(sample, operation, DUPLICATE, duplicate);
+    }
+
+    /**
+     * Traduce la violación de restricción única al mensaje del campo duplicado,
+     * o null si no es una de las restricciones de users.
+     */
+    private static UserAlreadyExistsException duplicateUser(DataIntegrityViolationException e) {
+        String constraint = constraintName(e);
+        if (constraint == null) {
+            return null;
+        }
+        // H2 añade sufijos y puede devolverlo en mayúsculas
+        constraint = constraint.toLowerCase(Locale.ROOT);
+        if (constraint.contains("uk_users_username")) {
+            return new UserAlreadyExistsException("El usuario ya existe");
+        }
+        if (constraint.contains("uk_users_email") || constraint.contains("ux_users_email_lower")) {
+            return new UserAlreadyExistsException("El correo ya está en uso");
+        }
+        return null;
+    }
+
+    private static String constraintName(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName();
+            }
         }
-        User user = User.builder()
+        return null;
+    }
+
+    private static User newUser(RegisterRequest request, String passwordHash) {
+        return User.builder()
                 .username(request.getUsername())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHash)
                 .role("USER") // Siempre USER
                 .sessionTimeout(900_000L)
                 .lastActivity(System.currentTimeMillis())
                 .build();
-        userRepository.save(user);
-        return new RegisterResponse("Usuario registrado correctamente", user.getUsername(), user.getRole());
+    }
+
+    /**
+     * Importa usuarios leyendo el cuerpo en streaming (CSV con cabecera
+     * username,email,password o NDJSON con esos campos). Trabaja por lotes: una
+     * consulta para descartar duplicados, hashing en paralelo y un saveAll que
+     * Hibernate envía como batch JDBC.
+     */
+    @Override
+    public UserImportResponse importUsers(InputStream in, boolean csv) throws IOException {
+        int[] counts = new int[3]; // importados, duplicados, inválidos
+        List<RegisterRequest> chunk = new ArrayList<>(importChunkSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (csv) {
+            reader.readLine(); // cabecera
+        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            RegisterRequest request = csv ? parseCsvLine(line) : parseJsonLine(line);
+            if (request == null || isBlank(request.getUsername()) || isBlank(request.getEmail())
+                    || isBlank(request.getPassword())) {
+                counts[2]++;
+                continue;
+            }
+            chunk.add(request);
+            if (chunk.size() == importChunkSize) {
+                importChunk(chunk, counts);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, counts);
+        }
+        return new UserImportResponse(counts[0], counts[1], counts[2]);
+    }
+
+    // Clave de comparación de emails, igual que el índice lower(email)
+    private static String normalizedEmail(RegisterRequest request) {
+        return request.getEmail().toLowerCase(Locale.ROOT);
+    }
+
+    private void importChunk(List<RegisterRequest> chunk, int[] counts) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<RegisterRequest> unique = new ArrayList<>(chunk.size());
+        for (RegisterRequest request : chunk) {
+            if (usernames.add(request.getUsername()) & emails.add(normalizedEmail(request))) {
+                unique.add(request);
+            } else {
+                counts[1]++;
+            }
+        }
+
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        for (UserSummary conflict : userRepository.findConflicts(usernames, emails)) {
+            takenUsernames.add(conflict.getUsername());
+            takenEmails.add(conflict.getEmail().toLowerCase(Locale.ROOT));
+        }
+        List<RegisterRequest> accepted = unique.stream()
+                .filter(r -> !takenUsernames.contains(r.getUsername()) && !takenEmails.contains(normalizedEmail(r)))
+                .toList();
+        counts[1] += unique.size() - accepted.size();
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<String> rawPasswords = accepted.stream().map(RegisterRequest::getPassword).toList();
+        List<String> hashes = passwordEncoder instanceof BoundedPasswordEncoder bounded
+                ? bounded.encodeAll(rawPasswords)
+                : rawPasswords.stream().map(passwordEncoder::encode).toList();
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            users.add(newUser(accepted.get(i), hashes.get(i)));
+        }
+        userRepository.saveAll(users);
+        users.forEach(u -> knownUsernames.add(u.getUsername()));
+        counts[0] += users.size();
+    }
+
+    // CSV simple: sin comillas ni comas dentro de los campos
+    private static RegisterRequest parseCsvLine(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            return null;
+        }
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(fields[0].trim());
+        request.setEmail(fields[1].trim());
+        request.setPassword(fields[2]);
+        return request;
+    }
+
+    private RegisterRequest parseJsonLine(String line) {
+        try {
+            return objectMapper.readValue(line, RegisterRequest.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
     @Override
     public LoginResponse refreshToken(RefreshRequest request) {
-        String username = jwtUtil.extractUsername(request.getRefreshToken());
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
-        if (jwtUtil.isTokenExpired(request.getRefreshToken())) {
-            throw new UserNotFoundException("Refresh token expirado");
+        Timer.Sample sample = authMetrics.start();
+        ParsedToken parsed;
+        try {
+            parsed = jwtUtil.parseToken(request.getRefreshToken());
+        } catch (InvalidTokenException e) {
+            throw authMetrics.failure(sample, "refresh",
+                    e.getReason() == InvalidTokenException.Reason.EXPIRED ? EXPIRED : INVALID_TOKEN, e);
+        }
+        User user = userCache.findByUsername(parsed.subject())
+                .orElseThrow(() -> authMetrics.failure(sample, "refresh", USER_NOT_FOUND,
+                        new UserNotFoundException("Usuario no encontrado")));
+        if (parsed.isExpired()) {
+            throw authMetrics.failure(sample, "refresh", EXPIRED, new UserNotFoundException("Refresh token expirado"));
+        }
+        if (!activityTracker.touch(user.getUsername())) {
+            throw authMetrics.failure(sample, "refresh", EXPIRED, new UserNotFoundException("Sesión expirada por inactividad"));
+        }
+        String refreshToken;
+        try {
+            refreshToken = refreshTokenService.rotate(parsed, user);
+        } catch (UserNotFoundException e) {
+            throw authMetrics.failure(sample, "refresh", REVOKED, e);
         }
         String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
-        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername());
-        return new LoginResponse(token, refreshToken, user.getUsername(), user.getRole());
+        authMetrics.success(sample, "refresh");
+        return UserMapper.toLoginResponse(user, token, refreshToken);
     }
 
     @Override
+    public void logout(RefreshRequest request, String accessToken) {
+        refreshTokenService.revoke(jwtUtil.parseToken(request.getRefreshToken()));
+        if (accessToken != null) {
+            // El token de acceso de la sesión deja de valer ya, no al expirar
+            revocationService.denyToken(jwtUtil.parseToken(accessToken));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public UserProfileResponse getProfile(String username) {
-        User user = userRepository.findByUsername(username)
+        // Si el usuario ya está en cache (p. ej. tras el login) no hace falta ir a la base de datos
+        return userCache.peekByUsername(username)
+                .map(UserMapper::toProfileResponse)
+                .or(() -> userRepository.findSummaryByUsername(username).map(UserMapper::toProfileResponse))
                 .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
-        UserProfileResponse resp = new UserProfileResponse();
-        resp.setUsername(user.getUsername());
-        resp.setEmail(user.getEmail());
-        resp.setRole(user.getRole());
-        return resp;
     }
 
     @Override
     public UserProfileResponse updateProfile(String username, UpdateUserRequest request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
-        if (!user.getEmail().equals(request.getEmail()) &&
+        Timer.Sample sample = authMetrics.start();
+        User user = userCache.findByUsername(username)
+                .orElseThrow(() -> authMetrics.failure(sample, "update_profile", USER_NOT_FOUND,
+                        new UserNotFoundException("Usuario no encontrado")));
+        if (!user.getEmail().equalsIgnoreCase(request.getEmail()) &&
                 userRepository.existsByEmail(request.getEmail())) {
-            throw new UserAlreadyExistsException("El correo ya está en uso");
+            throw authMetrics.failure(sample, "update_profile", DUPLICATE, new UserAlreadyExistsException("El correo ya está en uso"));
         }
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        userRepository.save(user);
-        UserProfileResponse resp = new UserProfileResponse();
-        resp.setUsername(user.getUsername());
-        resp.setEmail(user.getEmail());
-        resp.setRole(user.getRole());
-        return resp;
+        try {
+            // La comprobación previa no cubre el username ni dos cambios a la vez: manda la restricción
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw integrityViolation(sample, "update_profile", e);
+        }
+        knownUsernames.add(user.getUsername());
+        userCache.evict(username);
+        userCache.evict(user);
+        if (!username.equals(user.getUsername())) {
+            // Los tokens con el username anterior ya no deben autenticar ni refrescar
+            refreshTokenService.revokeAll(user);
+            revocationService.invalidateUser(username);
+            activityTracker.endSession(username);
+        }
+        authMetrics.success(sample, "update_profile");
+        return UserMapper.toProfileResponse(user);
     }
 
     @Override
     public void deleteUser(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
+        Timer.Sample sample = authMetrics.start();
+        User user = userCache.findByUsername(username)
+                .orElseThrow(() -> authMetrics.failure(sample, "delete_user", USER_NOT_FOUND,
+                        new UserNotFoundException("Usuario no encontrado")));
+        refreshTokenService.revokeAll(user);
         userRepository.delete(user);
+        userCache.evict(user);
+        revocationService.invalidateUser(username);
+        activityTracker.endSession(username);
+        authMetrics.success(sample, "delete_user");
     }
 
     @Override
     public void changePassword(String username, ChangePasswordRequest request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
+        Timer.Sample sample = authMetrics.start();
+        User user = userCache.findByUsername(username)
+                .orElseThrow(() -> authMetrics.failure(sample, "change_password", USER_NOT_FOUND,
+                        new UserNotFoundException("Usuario no encontrado")));
         if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
-            throw new UserNotFoundException("Contraseña antigua incorrecta");
+            throw authMetrics.failure(sample, "change_password", BAD_PASSWORD,
+                    new UserNotFoundException("Contraseña antigua incorrecta"));
         }
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        userCache.evict(user);
+        // Las sesiones abiertas con la contraseña anterior no pueden renovarse ni seguir usándose
+        refreshTokenService.revokeAll(user);
+        revocationService.invalidateUser(username);
+        authMetrics.success(sample, "change_password");
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserProfileResponse> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return users.stream()
-                .map(user -> {
-                    UserProfileResponse resp = new UserProfileResponse();
-                    resp.setUsername(user.getUsername());
-                    resp.setEmail(user.getEmail());
-                    resp.setRole(user.getRole());
-                    return resp;
-                })
+        return userRepository.findAllByOrderByIdAsc().stream()
+                .map(UserMapper::toProfileResponse)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public UserPageResponse getUsersPage(Long afterId, Integer size, String role) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        List<UserSummary> page = userRepository.findSummariesAfter(
+                afterId != null ? afterId : 0L, role, PageRequest.ofSize(pageSize));
+        List<UserProfileResponse> users = page.stream()
+                .map(UserMapper::toProfileResponse)
+                .collect(Collectors.toList());
+        // Página incompleta: no hay más resultados
+        Long nextCursor = page.size() < pageSize ? null : page.get(page.size() - 1).getId();
+        return new UserPageResponse(users, nextCursor);
+    }
+
+    /**
+     * Escribe todos los usuarios como NDJSON leyendo de un cursor de base de datos,
+     * así la memoria usada no depende del número de usuarios.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(String role, OutputStream out) throws IOException {
+        try (Stream<UserSummary> users = userRepository.streamSummaries(role);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // Sin separador por defecto entre valores raíz: cada línea la cierra '\n'
+            generator.setRootValueSeparator(null);
+            Iterator<UserSummary> it = users.iterator();
+            while (it.hasNext()) {
+                generator.writeObject(UserMapper.toProfileResponse(it.next()));
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public BatchOperationResponse promoteToAdmin(List<String> usernames) {
+        List<UserSummary> found = userRepository.findSummariesByUsernameIn(usernames);
+        if (!found.isEmpty()) {
+            userRepository.updateRole(found.stream().map(UserSummary::getId).toList(), "ADMIN");
+        }
+        afterCommit(() -> {
+            for (UserSummary user : found) {
+                userCache.evict(user.getUsername());
+                revocationService.invalidateUser(user.getUsername());
+            }
+        });
+        return new BatchOperationResponse(found.size(), notFound(usernames, found));
+    }
+
+    @Override
+    @Transactional
+    public BatchOperationResponse deleteUsers(List<String> usernames) {
+        List<UserSummary> found = userRepository.findSummariesByUsernameIn(usernames);
+        if (!found.isEmpty()) {
+            List<Long> ids = found.stream().map(UserSummary::getId).toList();
+            refreshTokenService.revokeAll(ids);
+            userRepository.deleteAllByIdInBatch(ids);
+        }
+        afterCommit(() -> {
+            for (UserSummary user : found) {
+                userCache.evict(user.getUsername());
+                revocationService.invalidateUser(user.getUsername());
+                activityTracker.endSession(user.getUsername());
+            }
+        });
+        return new BatchOperationResponse(found.size(), notFound(usernames, found));
+    }
+
+    /**
+     * Ejecuta la acción tras el commit de la transacción en curso. Antes, un login
+     * concurrente podría volver a cachear el usuario o emitir un token con el rol
+     * anterior después del evict/invalidateUser y antes de que el cambio fuera visible.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static List<String> notFound(List<String> requested, List<UserSummary> found) {
+        Set<String> existing = found.stream().map(UserSummary::getUsername).collect(Collectors.toSet());
+        return requested.stream().filter(u -> !existing.contains(u)).distinct().toList();
+    }
+
     @Override
     public void promoteToAdmin(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UserNotFoundException("Usuario no encontrado"));
+        Timer.Sample sample = authMetrics.start();
+        User user = userCache.findByUsername(username)
+                .orElseThrow(() -> authMetrics.failure(sample, "promote", USER_NOT_FOUND,
+                        new UserNotFoundException("Usuario no encontrado")));
         user.setRole("ADMIN");
         userRepository.save(user);
+        userCache.evict(user);
+        revocationService.invalidateUser(username);
+        authMetrics.success(sample, "promote");
     }
 }
\ No newline at end of file
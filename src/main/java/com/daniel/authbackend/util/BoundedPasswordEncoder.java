@@ -0,0 +1,128 @@
+package com.daniel.authbackend.util;
+
+import com.daniel.authbackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta el hashing de contraseñas en un pool propio y acotado, fuera de los
+ * hilos de Tomcat. Si la cola está llena se rechaza al instante con
+ * {@link ServiceBusyException} (503) en lugar de dejar el hilo esperando.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.hash.rejected")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Codifica una lista de contraseñas en paralelo usando todos los hilos del
+     * pool. Se envían como mucho tantas tareas como hilos a la vez para no llenar
+     * la cola que comparten los logins; si aun así está llena, la tarea se
+     * ejecuta en el hilo que llama en lugar de fallar.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        String[] encoded = new String[rawPasswords.size()];
+        int window = executor.getMaximumPoolSize();
+        for (int start = 0; start < encoded.length; start += window) {
+            int end = Math.min(start + window, encoded.length);
+            List<Future<String>> futures = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                CharSequence raw = rawPasswords.get(i);
+                Callable<String> task = () -> encodeTimer.record(() -> delegate.encode(raw));
+                try {
+                    futures.add(executor.submit(task));
+                } catch (RejectedExecutionException e) {
+                    futures.add(CompletableFuture.completedFuture(encodeTimer.record(() -> delegate.encode(raw))));
+                }
+            }
+            for (int i = start; i < end; i++) {
+                encoded[i] = await(futures.get(i - start));
+            }
+        }
+        return Arrays.asList(encoded);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Servidor ocupado, inténtalo de nuevo en unos segundos");
+        }
+        return await(future);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Hashing de contraseña interrumpido", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
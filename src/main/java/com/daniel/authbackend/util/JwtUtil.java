@@ -1,17 +1,32 @@
 package com.daniel.authbackend.util;
 
+import com.daniel.authbackend.exception.InvalidTokenException;
+import com.daniel.authbackend.exception.InvalidTokenException.Reason;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final TokenCache tokenCache;
+    private final SigningKeyStore keyStore;
+    private final MeterRegistry meterRegistry;
+
+    private static final String FAMILY_CLAIM = "fam";
+    // iat en milisegundos: el iat estándar solo tiene segundos y no basta para
+    // comparar con el instante de invalidación de TokenRevocationService
+    private static final String ISSUED_AT_MS_CLAIM = "iat_ms";
 
     @Value("${jwt.access.expiration.ms}")
     private long accessExpiration;
@@ -19,49 +34,129 @@ public class JwtUtil {
     @Value("${jwt.refresh.expiration.ms}")
     private long refreshExpiration;
 
+    // El parser se construye una sola vez; la clave se elige por el kid del token
+    private JwtParser parser;
+    private Timer signTimer;
+    private Timer verifyTimer;
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        Key key = keyStore.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            // kid desconocido: nunca se firmó con una clave nuestra
+                            throw InvalidTokenException.of(Reason.BAD_SIGNATURE);
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        signTimer = Timer.builder("auth.jwt").tag("operation", "sign").register(meterRegistry);
+        verifyTimer = Timer.builder("auth.jwt").tag("operation", "verify").register(meterRegistry);
+    }
+
     public String generateToken(String username, String role) {
-        return Jwts.builder()
-                .setSubject(username)
+        long now = System.currentTimeMillis();
+        return signTimer.record(() -> sign(Jwts.builder()
+                // jti: permite revocar este token concreto (TokenRevocationService)
+                .id(UUID.randomUUID().toString())
+                .subject(username)
                 .claim("role", role)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + accessExpiration))
-                .signWith(SignatureAlgorithm.HS256, secret.getBytes(StandardCharsets.UTF_8))
-                .compact();
+                .claim(ISSUED_AT_MS_CLAIM, now)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + accessExpiration))));
     }
 
-    public String generateRefreshToken(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + refreshExpiration))
-                .signWith(SignatureAlgorithm.HS256, secret.getBytes(StandardCharsets.UTF_8))
-                .compact();
+    /**
+     * Refresh token con identificador único (jti) y familia de rotación; ambos
+     * se registran en {@code RefreshTokenService}, que es quien lo emite.
+     */
+    public String generateRefreshToken(String username, String id, String family, long expiresAt) {
+        long now = System.currentTimeMillis();
+        return signTimer.record(() -> sign(Jwts.builder()
+                .id(id)
+                .subject(username)
+                .claim(FAMILY_CLAIM, family)
+                .claim(ISSUED_AT_MS_CLAIM, now)
+                .issuedAt(new Date(now))
+                .expiration(new Date(expiresAt))));
+    }
+
+    public long getRefreshExpiration() {
+        return refreshExpiration;
+    }
+
+    private String sign(JwtBuilder builder) {
+        SigningKeyStore.SigningKey key = keyStore.signingKey();
+        if (key.kid() != null) {
+            builder.header().keyId(key.kid());
+        }
+        return builder.signWith(key.key(), key.algorithm()).compact();
+    }
+
+    /**
+     * Verifica la firma y decodifica el token en una sola pasada. Si el token
+     * ya se verificó antes y no ha expirado, se sirve desde {@link TokenCache}.
+     *
+     * @throws InvalidTokenException con el motivo del rechazo
+     */
+    public ParsedToken parseToken(String token) {
+        return tokenCache.get(token, this::verify);
+    }
+
+    private ParsedToken verify(String token) {
+        Claims claims = verifyTimer.record(() -> getClaims(token));
+        // Tokens emitidos antes de existir iat_ms: se usa el iat en segundos
+        Long issuedAtMs = claims.get(ISSUED_AT_MS_CLAIM, Long.class);
+        Date issuedAt = claims.getIssuedAt();
+        return new ParsedToken(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getId(),
+                claims.get(FAMILY_CLAIM, String.class),
+                claims.getExpiration().getTime(),
+                issuedAtMs != null ? issuedAtMs : issuedAt != null ? issuedAt.getTime() : 0L);
     }
 
     public String extractUsername(String token) {
-        Claims claims = getClaims(token);
-        return claims.getSubject();
+        return parseToken(token).subject();
     }
 
     public String extractRole(String token) {
-        Claims claims = getClaims(token);
-        return claims.get("role", String.class);
+        return parseToken(token).role();
     }
 
     public boolean isTokenExpired(String token) {
-        Date expiration = getClaims(token).getExpiration();
-        return expiration.before(new Date());
+        return parseToken(token).isExpired();
     }
 
     private Claims getClaims(String token) {
+        if (!hasJwsShape(token)) {
+            // Basura evidente: ni se llega al parser
+            throw InvalidTokenException.of(Reason.MALFORMED);
+        }
         try {
-            return Jwts.parser()
-                    .setSigningKey(secret.getBytes(StandardCharsets.UTF_8))
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-        } catch (JwtException e) {
-            throw new RuntimeException("Token inválido o corrupto", e);
+            return parser.parseSignedClaims(token).getPayload();
+        } catch (ExpiredJwtException e) {
+            // jjwt comprueba el exp después de la firma: el token es nuestro pero ha caducado
+            throw InvalidTokenException.of(Reason.EXPIRED);
+        } catch (SecurityException e) {
+            throw InvalidTokenException.of(Reason.BAD_SIGNATURE);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw InvalidTokenException.of(Reason.MALFORMED);
+        }
+    }
+
+    // header.payload.firma: exactamente dos puntos
+    private static boolean hasJwsShape(String token) {
+        if (token == null || token.isEmpty()) {
+            return false;
         }
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        return second > 0 && token.indexOf('.', second + 1) < 0;
     }
-}
\ No newline at end of file
+}
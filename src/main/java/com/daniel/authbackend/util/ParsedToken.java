@@ -0,0 +1,19 @@
+package com.daniel.authbackend.util;
+
+import java.util.Date;
+
+/**
+ * Token JWT ya verificado y decodificado. Inmutable: se obtiene una sola vez
+ * por petición con {@link JwtUtil#parseToken(String)}. {@code id} es el jti;
+ * {@code family} solo la llevan los refresh tokens.
+ */
+public record ParsedToken(String subject, String role, String id, String family, long expiresAt, long issuedAt) {
+
+    public boolean isExpired() {
+        return expiresAt < System.currentTimeMillis();
+    }
+
+    public Date expiration() {
+        return new Date(expiresAt);
+    }
+}
@@ -0,0 +1,247 @@
+package com.daniel.authbackend.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.*;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Claves de firma y verificación de los JWT.
+ *
+ * <p>Con HS256 (por defecto) se usa el secreto compartido de {@code jwt.secret}.
+ * Con RS256, ES256 o EdDSA las claves se cargan de {@code jwt.keys.dir}: cada par
+ * son dos ficheros PEM, {@code <kid>.key} (PKCS#8) y {@code <kid>.pub} (X.509).
+ * Se aceptan todas las del directorio y firma la de kid mayor en orden
+ * lexicográfico (p. ej. fechas 2026-10-01, 2026-11-01) entre las que ya llevan
+ * publicadas {@code jwt.keys.activation-delay.ms}, contando desde la fecha de
+ * modificación de su {@code .pub}.</p>
+ *
+ * <p>Rotación: el directorio se relee cada {@code jwt.keys.reload-interval.ms}.
+ * <ol>
+ *   <li>Añadir el par nuevo. Aparece en el JWKS en la siguiente recarga, pero aún
+ *   no firma: los verificadores pueden tener en cache el JWKS anterior.</li>
+ *   <li>Pasado el retardo de activación (por defecto max-age del JWKS más el
+ *   intervalo de recarga) empieza a firmar sin intervención.</li>
+ *   <li>Borrar el par antiguo cuando hayan expirado sus tokens (la vida del
+ *   refresh token).</li>
+ * </ol>
+ * Si ninguna clave ha cumplido el retardo (primer despliegue) firma la publicada
+ * hace más tiempo.</p>
+ */
+@Slf4j
+@Component
+public class SigningKeyStore {
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.signing.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${jwt.keys.dir:}")
+    private String keysDir;
+
+    @Value("${jwt.keys.activation-delay.ms:600000}")
+    private long activationDelayMs;
+
+    /**
+     * Conjunto inmutable; se sustituye entero en cada recarga.
+     */
+    private record KeySet(SigningKey active, Map<String, Key> verificationKeys, byte[] jwks, String etag) {
+    }
+
+    public record SigningKey(String kid, Key key, SecureDigestAlgorithm<Key, ?> algorithm) {
+    }
+
+    private volatile KeySet keySet;
+
+    @PostConstruct
+    void init() {
+        if (isSymmetric()) {
+            SecretKey hmacKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            // Sin kid: la clave simétrica nunca se publica en el JWKS
+            SigningKey active = new SigningKey(null, hmacKey, cast(Jwts.SIG.HS256));
+            byte[] jwks = "{\"keys\":[]}".getBytes(StandardCharsets.UTF_8);
+            keySet = new KeySet(active, Collections.emptyMap(), jwks, etag(jwks));
+            return;
+        }
+        reload();
+        if (keySet == null) {
+            throw new IllegalStateException("No hay claves " + algorithm + " en jwt.keys.dir=" + keysDir);
+        }
+    }
+
+    public SigningKey signingKey() {
+        return keySet.active();
+    }
+
+    /**
+     * Clave para verificar un token según su kid, o null si no se conoce.
+     */
+    public Key verificationKey(String kid) {
+        KeySet current = keySet;
+        if (kid == null) {
+            return isSymmetric() ? current.active().key() : null;
+        }
+        return current.verificationKeys().get(kid);
+    }
+
+    public byte[] jwks() {
+        return keySet.jwks();
+    }
+
+    public String jwksEtag() {
+        return keySet.etag();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys.reload-interval.ms:300000}")
+    public void reload() {
+        if (isSymmetric() || keysDir.isBlank()) {
+            return;
+        }
+        try {
+            KeySet loaded = load(Path.of(keysDir));
+            if (loaded == null) {
+                // Nunca dejar el servicio sin clave de firma por un directorio vacío
+                log.warn("jwt.keys.dir={} no contiene pares de claves; se mantienen las actuales", keysDir);
+                return;
+            }
+            if (keySet == null || !loaded.etag().equals(keySet.etag())
+                    || !loaded.active().kid().equals(keySet.active().kid())) {
+                log.info("Claves JWT cargadas: activa={}, publicadas={}",
+                        loaded.active().kid(), loaded.verificationKeys().keySet());
+            }
+            keySet = loaded;
+        } catch (IOException | GeneralSecurityException e) {
+            if (keySet == null) {
+                throw new IllegalStateException("No se pudieron cargar las claves JWT de " + keysDir, e);
+            }
+            log.error("Error recargando las claves JWT de {}; se mantienen las actuales", keysDir, e);
+        }
+    }
+
+    private KeySet load(Path dir) throws IOException, GeneralSecurityException {
+        SortedMap<String, KeyPair> pairs = new TreeMap<>();
+        Map<String, Long> publishedAt = new HashMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path privateFile : files.filter(p -> p.getFileName().toString().endsWith(".key")).toList()) {
+                String name = privateFile.getFileName().toString();
+                String kid = name.substring(0, name.length() - ".key".length());
+                Path publicFile = dir.resolve(kid + ".pub");
+                if (!Files.exists(publicFile)) {
+                    log.warn("Falta {} para la clave privada {}; se ignora", publicFile, privateFile);
+                    continue;
+                }
+                pairs.put(kid, new KeyPair(readPublicKey(publicFile), readPrivateKey(privateFile)));
+                publishedAt.put(kid, Files.getLastModifiedTime(publicFile).toMillis());
+            }
+        }
+        if (pairs.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Key> verificationKeys = new HashMap<>();
+        StringJoiner jwks = new StringJoiner(",", "{\"keys\":[", "]}");
+        for (Map.Entry<String, KeyPair> entry : pairs.entrySet()) {
+            PublicKey publicKey = entry.getValue().getPublic();
+            verificationKeys.put(entry.getKey(), publicKey);
+            PublicJwk<?> jwk = Jwks.builder().key(publicKey)
+                    .id(entry.getKey())
+                    .algorithm(algorithm)
+                    .publicKeyUse("sig")
+                    .build();
+            jwks.add(Jwks.json(jwk));
+        }
+
+        String activeKid = activeKid(pairs.keySet(), publishedAt);
+        SigningKey active = new SigningKey(activeKid, pairs.get(activeKid).getPrivate(), signatureAlgorithm());
+        byte[] jwksBytes = jwks.toString().getBytes(StandardCharsets.UTF_8);
+        return new KeySet(active, Map.copyOf(verificationKeys), jwksBytes, etag(jwksBytes));
+    }
+
+    /**
+     * Kid mayor entre los publicados hace al menos activation-delay; si no hay
+     * ninguno, el publicado hace más tiempo.
+     */
+    private String activeKid(Set<String> kids, Map<String, Long> publishedAt) {
+        long activeBefore = System.currentTimeMillis() - activationDelayMs;
+        String active = null;
+        for (String kid : kids) {
+            if (publishedAt.get(kid) <= activeBefore) {
+                active = kid;
+            }
+        }
+        if (active != null) {
+            return active;
+        }
+        return Collections.min(kids, Comparator.comparing(publishedAt::get));
+    }
+
+    private SecureDigestAlgorithm<Key, ?> signatureAlgorithm() {
+        return switch (algorithm) {
+            case "RS256" -> cast(Jwts.SIG.RS256);
+            case "ES256" -> cast(Jwts.SIG.ES256);
+            case "EdDSA" -> cast(Jwts.SIG.EdDSA);
+            default -> throw new IllegalStateException("jwt.signing.algorithm no soportado: " + algorithm);
+        };
+    }
+
+    private String keyFactoryAlgorithm() {
+        return switch (algorithm) {
+            case "RS256" -> "RSA";
+            case "ES256" -> "EC";
+            case "EdDSA" -> "Ed25519";
+            default -> throw new IllegalStateException("jwt.signing.algorithm no soportado: " + algorithm);
+        };
+    }
+
+    private boolean isSymmetric() {
+        return "HS256".equals(algorithm);
+    }
+
+    private PrivateKey readPrivateKey(Path file) throws IOException, GeneralSecurityException {
+        return KeyFactory.getInstance(keyFactoryAlgorithm()).generatePrivate(new PKCS8EncodedKeySpec(readPem(file)));
+    }
+
+    private PublicKey readPublicKey(Path file) throws IOException, GeneralSecurityException {
+        return KeyFactory.getInstance(keyFactoryAlgorithm()).generatePublic(new X509EncodedKeySpec(readPem(file)));
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        String base64 = Files.readString(file)
+                .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    private static String etag(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SecureDigestAlgorithm<Key, ?> cast(SecureDigestAlgorithm<?, ?> alg) {
+        return (SecureDigestAlgorithm<Key, ?>) alg;
+    }
+}
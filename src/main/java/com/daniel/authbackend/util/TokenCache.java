@@ -0,0 +1,130 @@
+package com.daniel.authbackend.util;
+
+import com.daniel.authbackend.exception.InvalidTokenException;
+import com.daniel.authbackend.exception.InvalidTokenException.Reason;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache en memoria de tokens ya verificados. La clave es el SHA-256 del token
+ * (nunca se guarda el token en claro) y cada entrada vive hasta su propio exp.
+ * Los tokens rechazados se recuerdan aparte con su motivo durante
+ * {@code jwt.cache.rejected.ttl.ms}: un cliente que reintenta con un token
+ * caducado no vuelve a pasar por el parser.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${jwt.cache.rejected.maximum-size:10000}")
+    private long rejectedMaximumSize;
+
+    @Value("${jwt.cache.rejected.ttl.ms:60000}")
+    private long rejectedTtlMs;
+
+    private Cache<ByteBuffer, ParsedToken> cache;
+    private Cache<ByteBuffer, Reason> rejected;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        // TTL corto: un kid desconocido puede pasar a ser válido tras recargar las claves
+        rejected = Caffeine.newBuilder()
+                .maximumSize(rejectedMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(rejectedTtlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+        CaffeineCacheMetrics.monitor(meterRegistry, rejected, "jwt.rejected-tokens");
+    }
+
+    /**
+     * Devuelve el token cacheado o lo verifica con {@code verifier}. Si el
+     * verificador lo rechaza se guarda el motivo y se relanza la misma excepción.
+     */
+    public ParsedToken get(String token, Function<String, ParsedToken> verifier) {
+        if (cache == null) {
+            return verifier.apply(token);
+        }
+        ByteBuffer key = hash(token);
+        ParsedToken cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (cached.isExpired()) {
+                // La firma ya se verificó: no hace falta el parser para saber que caducó
+                throw InvalidTokenException.of(Reason.EXPIRED);
+            }
+            return cached;
+        }
+        Reason reason = rejected.getIfPresent(key);
+        if (reason != null) {
+            throw InvalidTokenException.of(reason);
+        }
+        ParsedToken parsed;
+        try {
+            parsed = verifier.apply(token);
+        } catch (InvalidTokenException e) {
+            rejected.put(key, e.getReason());
+            throw e;
+        }
+        cache.put(key, parsed);
+        return parsed;
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    // Cada entrada expira exactamente en el exp del token
+    private static class TokenExpiry implements Expiry<ByteBuffer, ParsedToken> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, ParsedToken value, long currentTime) {
+            long remainingMs = value.expiresAt() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, ParsedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, ParsedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+-- Esquema inicial. Los nombres de las restricciones únicas son estables: el
+-- servicio los usa para traducir violaciones de unicidad a mensajes de error.
+
+create sequence users_seq start with 1 increment by 50;
+
+create table users (
+    id              bigint       not null,
+    username        varchar(255) not null,
+    email           varchar(255) not null,
+    password        varchar(255) not null,
+    role            varchar(255) not null,
+    last_activity   bigint,
+    session_timeout bigint,
+    constraint pk_users primary key (id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+);
+
+-- Un mismo correo no puede registrarse dos veces cambiando mayúsculas
+create unique index ux_users_email_lower on users (lower(email));
+
+create table refresh_tokens (
+    id         varchar(36) not null,
+    family     varchar(36) not null,
+    user_id    bigint      not null,
+    expires_at bigint      not null,
+    used       boolean     not null,
+    constraint pk_refresh_tokens primary key (id)
+);
+
+create index idx_refresh_tokens_family on refresh_tokens (family);
+create index idx_refresh_tokens_user_id on refresh_tokens (user_id);
+create index idx_refresh_tokens_expires_at on refresh_tokens (expires_at);
@@ -0,0 +1,46 @@
+-- Completa los esquemas creados por Hibernate (ddl-auto) antes de usar Flyway.
+-- Flyway los marca como V1 (baseline-on-migrate, perfil prod) sin ejecutar
+-- V1__initial_schema.sql, así que aquí se añade lo que les falta respecto a V1.
+-- Todo es idempotente: en una base creada con V1 no cambia nada.
+
+-- Antes los ids eran IDENTITY. La secuencia empieza por encima del id máximo;
+-- greatest evita retrocederla si ya existía y hay instancias con bloques reservados
+create sequence if not exists users_seq start with 1 increment by 50;
+select setval('users_seq', greatest(last_value, coalesce((select max(id) from users), 0) + 50))
+from users_seq;
+
+-- Hibernate generaba nombres de restricción aleatorios; el servicio necesita los estables
+do $$
+declare
+    c record;
+begin
+    for c in
+        select con.conname, att.attname
+        from pg_constraint con
+        join pg_attribute att on att.attrelid = con.conrelid and att.attnum = con.conkey[1]
+        where con.conrelid = 'users'::regclass
+          and con.contype = 'u'
+          and cardinality(con.conkey) = 1
+          and att.attname in ('username', 'email')
+    loop
+        if c.conname <> ('uk_users_' || c.attname) then
+            execute format('alter table users rename constraint %I to %I', c.conname, 'uk_users_' || c.attname);
+        end if;
+    end loop;
+end $$;
+
+-- Falla si ya hay correos repetidos cambiando mayúsculas: hay que resolverlos a mano
+create unique index if not exists ux_users_email_lower on users (lower(email));
+
+create table if not exists refresh_tokens (
+    id         varchar(36) not null,
+    family     varchar(36) not null,
+    user_id    bigint      not null,
+    expires_at bigint      not null,
+    used       boolean     not null,
+    constraint pk_refresh_tokens primary key (id)
+);
+
+create index if not exists idx_refresh_tokens_family on refresh_tokens (family);
+create index if not exists idx_refresh_tokens_user_id on refresh_tokens (user_id);
+create index if not exists idx_refresh_tokens_expires_at on refresh_tokens (expires_at);
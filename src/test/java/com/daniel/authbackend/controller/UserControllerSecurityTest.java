@@ -0,0 +1,106 @@
+package com.daniel.authbackend.controller;
+
+import com.daniel.authbackend.dto.LoginRequest;
+import com.daniel.authbackend.dto.RegisterRequest;
+import com.daniel.authbackend.repository.RefreshTokenRepository;
+import com.daniel.authbackend.repository.UserRepository;
+import com.daniel.authbackend.service.IUserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Endpoints de administración con tokens reales: el filtro JWT concede el rol
+ * tal cual ("ADMIN"), así que un admin debe pasar y un USER recibir 403.
+ */
+@SpringBootTest(properties = "security.bcrypt.strength=4")
+@AutoConfigureMockMvc
+@ActiveProfiles("loadtest")
+class UserControllerSecurityTest {
+
+    private static final String PASSWORD = "Admin#2025";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IUserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    // deleteAllInBatch no pasa por UserCache: usernames nuevos en cada test
+    private static final AtomicInteger RUN = new AtomicInteger();
+
+    private String plain;
+    private String adminToken;
+    private String userToken;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        int run = RUN.incrementAndGet();
+        String boss = "boss" + run;
+        plain = "plain" + run;
+        register(boss);
+        userService.promoteToAdmin(boss);
+        register(plain);
+        adminToken = login(boss);
+        userToken = login(plain);
+    }
+
+    @Test
+    void adminCanListUsersPage() throws Exception {
+        mockMvc.perform(get("/api/users/page").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(2));
+    }
+
+    @Test
+    void adminCanPromoteInBatch() throws Exception {
+        mockMvc.perform(post("/api/users/batch/promote")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usernames\": [\"" + plain + "\", \"ghost\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(1))
+                .andExpect(jsonPath("$.notFound[0]").value("ghost"));
+    }
+
+    @Test
+    void regularUserIsForbidden() throws Exception {
+        mockMvc.perform(get("/api/users/page").header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+    }
+
+    private void register(String username) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword(PASSWORD);
+        userService.register(request);
+    }
+
+    private String login(String username) {
+        LoginRequest request = new LoginRequest();
+        request.setUsername(username);
+        request.setPassword(PASSWORD);
+        return userService.login(request, "127.0.0.1").getToken();
+    }
+}
@@ -0,0 +1,245 @@
+package com.daniel.authbackend.loadtest;
+
+import com.daniel.authbackend.dto.LoginResponse;
+import com.daniel.authbackend.dto.RegisterRequest;
+import com.daniel.authbackend.service.IUserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga de extremo a extremo: arranca la aplicación contra H2 en modo
+ * PostgreSQL, registra N usuarios con {@link IUserService#register} y lanza
+ * tráfico concurrente de login, refresh y perfil. Informa p50/p99, throughput y
+ * la espera media en el pool de Hikari, y falla si se superan los umbrales.
+ *
+ * <pre>
+ * mvn -Pload-test test
+ * mvn -Pload-test test -Dloadtest.threads=64 -Dloadtest.duration.seconds=30
+ * mvn -Pload-test test -Dloadtest.max-p99-ms=500                  # gate de regresión
+ * mvn -Pload-test test -Dspring.threads.virtual.enabled=true   # hilos virtuales
+ * </pre>
+ */
+@Tag("loadtest")
+@ActiveProfiles("loadtest")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AuthLoadTest {
+
+    private static final String PASSWORD = "LoadTest#2025";
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 200);
+    private static final int THREADS = Integer.getInteger("loadtest.threads", 32);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration.seconds", 10);
+    // 0 = sin umbral de latencia (depende de la máquina); fijarlo al usarlo como gate de regresión
+    private static final long MAX_P99_MS = Long.getLong("loadtest.max-p99-ms", 0);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private IUserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    // Tokens obtenidos en el login de cada usuario, para refresh y perfil
+    private final List<LoginResponse> sessions = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    void seedUsers() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            int n = i;
+            futures.add(pool.submit(() -> {
+                RegisterRequest request = new RegisterRequest();
+                request.setUsername(username(n));
+                request.setEmail(username(n) + "@loadtest.local");
+                request.setPassword(PASSWORD);
+                userService.register(request);
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    void authEndpointsUnderLoad() throws Exception {
+        Result login = run("login", false, n -> post("/api/auth/login",
+                "{\"username\":\"" + username(n) + "\",\"password\":\"" + PASSWORD + "\"}", -1));
+        assertThat(sessions).hasSizeGreaterThanOrEqualTo(THREADS);
+
+        // Los refresh tokens rotan: cada hilo renueva solo sus propias sesiones, porque
+        // reutilizar un token ya rotado revoca la familia entera
+        Result refresh = run("refresh", true, n -> post("/api/auth/refresh",
+                "{\"refreshToken\":\"" + sessions.get(n).getRefreshToken() + "\"}", n));
+
+        Result profile = run("profile", false, n -> get("/api/users/profile", session(n).getToken()));
+
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        double poolWaitMs = acquire != null ? acquire.mean(TimeUnit.MILLISECONDS) : Double.NaN;
+        double poolWaitMaxMs = acquire != null ? acquire.max(TimeUnit.MILLISECONDS) : Double.NaN;
+
+        System.out.printf("%n=== LOAD TEST (%d usuarios, %d hilos, %ds por fase, hilos virtuales=%s) ===%n",
+                USERS, THREADS, DURATION_SECONDS, System.getProperty("spring.threads.virtual.enabled", "false"));
+        for (Result r : List.of(login, refresh, profile)) {
+            System.out.println(r);
+        }
+        System.out.printf("hikari acquire: media=%.3f ms, max=%.3f ms%n%n", poolWaitMs, poolWaitMaxMs);
+
+        for (Result r : List.of(login, refresh, profile)) {
+            assertThat(r.errorRate()).as(r.name + " error rate").isLessThanOrEqualTo(MAX_ERROR_RATE);
+            if (MAX_P99_MS > 0) {
+                assertThat(r.percentileMs(0.99)).as(r.name + " p99 (ms)").isLessThanOrEqualTo(MAX_P99_MS);
+            }
+        }
+    }
+
+    /**
+     * Con {@code ownSessions} cada hilo recibe solo índices de {@link #sessions}
+     * que ningún otro hilo usa (t, t + THREADS, t + 2·THREADS...).
+     */
+    private Result run(String name, boolean ownSessions, IntCallable call) throws Exception {
+        ConcurrentLinkedQueue<long[]> samples = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = IntStream.range(0, THREADS)
+                .<Future<?>>mapToObj(t -> pool.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    Random random = new Random(t);
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = call.call(ownSessions ? ownSlot(t, random) : random.nextInt(USERS));
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (!ok) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    samples.add(Arrays.copyOf(latencies, count));
+                }))
+                .toList();
+        for (Future<?> w : workers) {
+            w.get();
+        }
+        pool.shutdown();
+
+        long[] all = samples.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(name, all, errors.get(), DURATION_SECONDS);
+    }
+
+    /**
+     * POST que devuelve una sesión: se añade a {@link #sessions} si {@code slot}
+     * es negativo o sustituye a la de esa posición.
+     */
+    private boolean post(String path, String body, int slot) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        LoginResponse session = objectMapper.readValue(response.body(), LoginResponse.class);
+        if (slot >= 0) {
+            sessions.set(slot, session);
+        } else if (sessions.size() < USERS) {
+            sessions.add(session);
+        }
+        return true;
+    }
+
+    private boolean get(String path, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private int ownSlot(int thread, Random random) {
+        int slots = (sessions.size() - thread + THREADS - 1) / THREADS;
+        return thread + THREADS * random.nextInt(slots);
+    }
+
+    private LoginResponse session(int n) {
+        return sessions.get(n % sessions.size());
+    }
+
+    private static String username(int n) {
+        return "loaduser" + n;
+    }
+
+    @FunctionalInterface
+    private interface IntCallable {
+        boolean call(int n) throws Exception;
+    }
+
+    private record Result(String name, long[] sortedNanos, long errors, int seconds) {
+
+        double percentileMs(double p) {
+            if (sortedNanos.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(p * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+        }
+
+        double errorRate() {
+            return sortedNanos.length == 0 ? 1.0 : (double) errors / sortedNanos.length;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s requests=%d errores=%d throughput=%.1f req/s p50=%.2f ms p99=%.2f ms",
+                    name, sortedNanos.length, errors, (double) sortedNanos.length / seconds,
+                    percentileMs(0.50), percentileMs(0.99));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.daniel.authbackend.repository;
+
+import com.daniel.authbackend.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache de segundo nivel de User: cuenta las sentencias SQL preparadas para
+ * comprobar que las búsquedas repetidas no llegan a la base de datos. Sin
+ * transacción de test: cada llamada al repositorio usa su propia sesión, así
+ * que la cache de primer nivel no interviene.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("loadtest")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserRepositoryCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAllInBatch();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        userRepository.save(User.builder()
+                .username("cached")
+                .email("cached@example.com")
+                .password("hash")
+                .role("USER")
+                .build());
+        statistics.clear();
+    }
+
+    @Test
+    void repeatedUsernameLookupsResolveFromNaturalIdAndEntityCaches() {
+        assertThat(userRepository.findByUsername("cached")).isPresent();
+        long afterFirst = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(userRepository.findByUsername("cached"))
+                    .get()
+                    .extracting(User::getEmail)
+                    .isEqualTo("cached@example.com");
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(afterFirst);
+        assertThat(statistics.getNaturalIdCacheHitCount()).isGreaterThanOrEqualTo(10);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(10);
+    }
+
+    @Test
+    void usernameChangeIsVisibleThroughNaturalIdCache() {
+        User user = userRepository.findByUsername("cached").orElseThrow();
+        user.setUsername("renamed");
+        userRepository.save(user);
+
+        assertThat(userRepository.findByUsername("cached")).isEmpty();
+        assertThat(userRepository.findByUsername("renamed")).isPresent();
+    }
+
+    @Test
+    void saveFromCachedEntityKeepsLastActivityWrittenByJdbc() {
+        // Entidad en la cache de segundo nivel con lastActivity null
+        User user = userRepository.findByUsername("cached").orElseThrow();
+        jdbcTemplate.update("update users set last_activity = ? where username = ?", 42L, "cached");
+
+        user.setEmail("changed@example.com");
+        userRepository.save(user);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "select last_activity from users where username = ?", Long.class, "cached")).isEqualTo(42L);
+    }
+
+    @Test
+    void repeatedExistsChecksHitQueryCache() {
+        assertThat(userRepository.existsByUsername("cached")).isTrue();
+        assertThat(userRepository.existsByEmail("nobody@example.com")).isFalse();
+        long afterFirst = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(userRepository.existsByUsername("cached")).isTrue();
+            assertThat(userRepository.existsByEmail("nobody@example.com")).isFalse();
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(afterFirst);
+        assertThat(statistics.getQueryCacheHitCount()).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    void queryCacheIsInvalidatedByWritesToUsers() {
+        assertThat(userRepository.existsByUsername("newcomer")).isFalse();
+
+        userRepository.save(User.builder()
+                .username("newcomer")
+                .email("newcomer@example.com")
+                .password("hash")
+                .role("USER")
+                .build());
+
+        assertThat(userRepository.existsByUsername("newcomer")).isTrue();
+    }
+}
@@ -0,0 +1,118 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.exception.TooManyAttemptsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Buckets GCRA y bloqueo progresivo de {@link LoginThrottle} con un reloj
+ * controlado: sin esperas reales ni Spring.
+ */
+class LoginThrottleTest {
+
+    private static final String USER = "victim";
+    private static final String IP = "10.0.0.1";
+
+    private LoginThrottle throttle;
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        throttle = new LoginThrottle(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(throttle, "enabled", true);
+        ReflectionTestUtils.setField(throttle, "maxKeys", 1000L);
+        ReflectionTestUtils.setField(throttle, "usernameCapacity", 5);
+        ReflectionTestUtils.setField(throttle, "usernameRefillMs", 12_000L);
+        ReflectionTestUtils.setField(throttle, "ipCapacity", 50);
+        ReflectionTestUtils.setField(throttle, "ipRefillMs", 200L);
+        ReflectionTestUtils.setField(throttle, "lockoutThreshold", 5);
+        ReflectionTestUtils.setField(throttle, "lockoutBaseMs", 30_000L);
+        ReflectionTestUtils.setField(throttle, "lockoutMaxMs", 900_000L);
+        clock = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+        ReflectionTestUtils.setField(throttle, "clock", clock);
+        throttle.init();
+    }
+
+    @Test
+    void burstIsAllowedThenRejected() {
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire(USER, IP);
+        }
+
+        assertRejectedFor(USER, IP, 12);
+    }
+
+    @Test
+    void bucketRefillsAfterTheEmissionInterval() {
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire(USER, IP);
+        }
+
+        advance(11_999);
+        assertRejectedFor(USER, IP, 1);
+        advance(1);
+        assertThatCode(() -> throttle.acquire(USER, IP)).doesNotThrowAnyException();
+        // Solo ha vuelto un token
+        assertRejectedFor(USER, IP, 12);
+    }
+
+    @Test
+    void lockoutDoublesUpToTheMaximum() {
+        // Bucket holgado: aquí solo interesa el bloqueo
+        ReflectionTestUtils.setField(throttle, "usernameCapacity", 1000);
+        for (int i = 0; i < 4; i++) {
+            throttle.onFailure(USER, IP);
+        }
+        assertThatCode(() -> throttle.acquire(USER, IP)).doesNotThrowAnyException();
+
+        long[] expectedSeconds = {30, 60, 120, 240, 480, 900, 900};
+        for (long seconds : expectedSeconds) {
+            throttle.onFailure(USER, IP);
+            assertRejectedFor(USER, IP, seconds);
+        }
+        // El bloqueo es por username + IP: la víctima entra desde la suya
+        assertThatCode(() -> throttle.acquire(USER, "10.0.0.2")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void successResetsTheLockout() {
+        ReflectionTestUtils.setField(throttle, "usernameCapacity", 1000);
+        for (int i = 0; i < 6; i++) {
+            throttle.onFailure(USER, IP);
+        }
+        assertRejectedFor(USER, IP, 60);
+
+        advance(60_000);
+        throttle.acquire(USER, IP);
+        throttle.onSuccess(USER, IP);
+
+        for (int i = 0; i < 4; i++) {
+            throttle.onFailure(USER, IP);
+        }
+        assertThatCode(() -> throttle.acquire(USER, IP)).doesNotThrowAnyException();
+        throttle.onFailure(USER, IP);
+        assertRejectedFor(USER, IP, 30);
+    }
+
+    private void advance(long ms) {
+        clock = Clock.offset(clock, Duration.ofMillis(ms));
+        ReflectionTestUtils.setField(throttle, "clock", clock);
+    }
+
+    private void assertRejectedFor(String username, String ip, long seconds) {
+        assertThatThrownBy(() -> throttle.acquire(username, ip))
+                .isInstanceOfSatisfying(TooManyAttemptsException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(seconds));
+    }
+}
@@ -0,0 +1,117 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.dto.*;
+import com.daniel.authbackend.exception.UserNotFoundException;
+import com.daniel.authbackend.model.User;
+import com.daniel.authbackend.repository.RefreshTokenRepository;
+import com.daniel.authbackend.repository.UserRepository;
+import com.daniel.authbackend.util.JwtUtil;
+import com.daniel.authbackend.util.ParsedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Rotación de refresh tokens: un token ya rotado que vuelve a presentarse revoca
+ * su familia, y un token solo rota para el usuario que lo recibió, también si
+ * su username pasa a otra cuenta.
+ */
+@SpringBootTest(properties = "security.bcrypt.strength=4")
+@ActiveProfiles("loadtest")
+class RefreshTokenServiceTest {
+
+    private static final String PASSWORD = "Refresh#2025";
+
+    @Autowired
+    private IUserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void reusedRefreshTokenRevokesTheWholeFamily() {
+        register("reuse", "reuse@example.com");
+        String first = login("reuse").getRefreshToken();
+        String second = refresh(first).getRefreshToken();
+
+        assertThatThrownBy(() -> refresh(first))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessage("Refresh token revocado");
+        // El token legítimo emitido en la rotación también cae con la familia
+        assertThatThrownBy(() -> refresh(second))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessage("Refresh token revocado");
+        assertThat(refreshTokenRepository.count()).isZero();
+    }
+
+    @Test
+    void refreshTokenDoesNotRotateForAnotherUser() {
+        register("owner", "owner@example.com");
+        register("intruder", "intruder@example.com");
+        ParsedToken token = jwtUtil.parseToken(login("owner").getRefreshToken());
+        User intruder = userRepository.findByUsername("intruder").orElseThrow();
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(token, intruder))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessage("Refresh token revocado");
+        assertThat(refreshTokenRepository.findAll())
+                .noneMatch(t -> t.getUserId().equals(intruder.getId()));
+    }
+
+    @Test
+    void renameRevokesRefreshTokensOfTheOldUsername() {
+        register("renamed", "renamed@example.com");
+        String oldToken = login("renamed").getRefreshToken();
+
+        UpdateUserRequest update = new UpdateUserRequest();
+        update.setUsername("renamed2");
+        update.setEmail("renamed@example.com");
+        userService.updateProfile("renamed", update);
+        // Otra cuenta ocupa el username liberado: el token antiguo no debe valerle
+        register("renamed", "other@example.com");
+
+        assertThatThrownBy(() -> refresh(oldToken)).isInstanceOf(UserNotFoundException.class);
+        assertThat(refresh(login("renamed").getRefreshToken()).getUsername()).isEqualTo("renamed");
+    }
+
+    private void register(String username, String email) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword(PASSWORD);
+        userService.register(request);
+    }
+
+    private LoginResponse login(String username) {
+        LoginRequest request = new LoginRequest();
+        request.setUsername(username);
+        request.setPassword(PASSWORD);
+        return userService.login(request, "127.0.0.1");
+    }
+
+    private LoginResponse refresh(String refreshToken) {
+        RefreshRequest request = new RefreshRequest();
+        request.setRefreshToken(refreshToken);
+        return userService.refreshToken(request);
+    }
+}
@@ -0,0 +1,140 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.util.ParsedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Anillo de cubetas de jti revocados, invalidación por usuario y snapshot en
+ * disco de {@link TokenRevocationService}, con un reloj controlado.
+ */
+class TokenRevocationServiceTest {
+
+    private static final long ACCESS_EXPIRATION = 900_000;
+    private static final long BUCKET = 60_000;
+    // accessExpiration / bucket + 2
+    private static final int RING = 17;
+
+    @TempDir
+    Path tempDir;
+
+    private Clock clock;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        // Parte del instante real: ParsedToken.isExpired usa el reloj del sistema
+        clock = Clock.fixed(Instant.now(), ZoneOffset.UTC);
+        service = newService("");
+    }
+
+    @Test
+    void deniedTokenIsRejectedUntilItExpiresThenPurged() {
+        ParsedToken token = accessToken("alice", "jti-1", clock.millis() + ACCESS_EXPIRATION);
+        service.denyToken(token);
+
+        assertThat(service.isRevoked(token)).isTrue();
+        assertThat(service.isRevoked(accessToken("alice", "jti-2", token.expiresAt()))).isFalse();
+
+        advance(ACCESS_EXPIRATION + BUCKET);
+        service.purgeExpired();
+
+        assertThat(service.isRevoked(token)).isFalse();
+        assertThat(ring()).satisfies(ring -> {
+            for (int i = 0; i < ring.length(); i++) {
+                assertThat(ring.get(i)).isNull();
+            }
+        });
+    }
+
+    @Test
+    void slotReusedAfterAFullTurnDropsOnlyExpiredEntries() {
+        long expiresAt = clock.millis() + ACCESS_EXPIRATION;
+        ParsedToken old = accessToken("alice", "old", expiresAt);
+        service.denyToken(old);
+
+        // Sin purga: la cubeta vieja sigue en su posición cuando el anillo da la vuelta
+        advance(RING * BUCKET);
+        ParsedToken recent = accessToken("bob", "recent", expiresAt + RING * BUCKET);
+        service.denyToken(recent);
+
+        assertThat(service.isRevoked(recent)).isTrue();
+        // El jti viejo no se arrastra a la ventana nueva
+        assertThat(service.isRevoked(accessToken("alice", "old", recent.expiresAt()))).isFalse();
+        assertThat(service.isRevoked(old)).isFalse();
+
+        // Otra revocación en la misma ventana comparte cubeta sin perder la anterior
+        ParsedToken sameWindow = accessToken("carol", "same", recent.expiresAt());
+        service.denyToken(sameWindow);
+        assertThat(service.isRevoked(recent)).isTrue();
+        assertThat(service.isRevoked(sameWindow)).isTrue();
+    }
+
+    @Test
+    void invalidateUserRejectsOnlyTokensIssuedBefore() {
+        long now = clock.millis();
+        service.invalidateUser("alice");
+
+        assertThat(service.isRevoked(accessToken("alice", "a", now + ACCESS_EXPIRATION, now - 1))).isTrue();
+        // Mismo milisegundo que la invalidación: también cae
+        assertThat(service.isRevoked(accessToken("alice", "b", now + ACCESS_EXPIRATION, now))).isTrue();
+        assertThat(service.isRevoked(accessToken("alice", "c", now + ACCESS_EXPIRATION, now + 1))).isFalse();
+        assertThat(service.isRevoked(accessToken("bob", "d", now + ACCESS_EXPIRATION, now - 1))).isFalse();
+    }
+
+    @Test
+    void snapshotSurvivesARestart() {
+        String file = tempDir.resolve("revocation/snapshot.bin").toString();
+        service = newService(file);
+        long now = clock.millis();
+        ParsedToken denied = accessToken("alice", "jti-1", now + ACCESS_EXPIRATION);
+        service.denyToken(denied);
+        service.invalidateUser("bob");
+        service.writeSnapshot();
+
+        TokenRevocationService restarted = newService(file);
+
+        assertThat(restarted.isRevoked(denied)).isTrue();
+        assertThat(restarted.isRevoked(accessToken("bob", "b", now + ACCESS_EXPIRATION, now - 1))).isTrue();
+        assertThat(restarted.isRevoked(accessToken("bob", "c", now + ACCESS_EXPIRATION, now + 1))).isFalse();
+        assertThat(restarted.isRevoked(accessToken("carol", "jti-2", now + ACCESS_EXPIRATION))).isFalse();
+    }
+
+    private TokenRevocationService newService(String snapshotFile) {
+        TokenRevocationService revocation = new TokenRevocationService();
+        ReflectionTestUtils.setField(revocation, "accessExpiration", ACCESS_EXPIRATION);
+        ReflectionTestUtils.setField(revocation, "bucketMs", BUCKET);
+        ReflectionTestUtils.setField(revocation, "snapshotFile", snapshotFile);
+        ReflectionTestUtils.setField(revocation, "clock", clock);
+        revocation.init();
+        return revocation;
+    }
+
+    private void advance(long ms) {
+        clock = Clock.offset(clock, Duration.ofMillis(ms));
+        ReflectionTestUtils.setField(service, "clock", clock);
+    }
+
+    private AtomicReferenceArray<?> ring() {
+        return (AtomicReferenceArray<?>) ReflectionTestUtils.getField(service, "deniedTokens");
+    }
+
+    private static ParsedToken accessToken(String subject, String id, long expiresAt) {
+        return accessToken(subject, id, expiresAt, expiresAt - ACCESS_EXPIRATION);
+    }
+
+    private static ParsedToken accessToken(String subject, String id, long expiresAt, long issuedAt) {
+        return new ParsedToken(subject, "USER", id, null, expiresAt, issuedAt);
+    }
+}
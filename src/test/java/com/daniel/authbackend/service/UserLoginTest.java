@@ -0,0 +1,59 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.dto.LoginRequest;
+import com.daniel.authbackend.model.User;
+import com.daniel.authbackend.repository.RefreshTokenRepository;
+import com.daniel.authbackend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Login con la configuración por defecto de una instancia entre varias: un
+ * usuario dado de alta por otra réplica (sin pasar por el filtro de usernames
+ * de esta) debe poder entrar.
+ */
+@SpringBootTest(properties = "security.bcrypt.strength=4")
+@ActiveProfiles("loadtest")
+class UserLoginTest {
+
+    @Autowired
+    private IUserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void userRegisteredByAnotherInstanceCanLogIn() {
+        // Directo al repositorio, como lo vería esta instancia si el registro lo hizo otra
+        userRepository.saveAndFlush(User.builder()
+                .username("elsewhere")
+                .email("elsewhere@example.com")
+                .password(passwordEncoder.encode("Login#2025"))
+                .role("USER")
+                .build());
+
+        LoginRequest request = new LoginRequest();
+        request.setUsername("elsewhere");
+        request.setPassword("Login#2025");
+
+        assertThat(userService.login(request, "127.0.0.1").getUsername()).isEqualTo("elsewhere");
+    }
+}
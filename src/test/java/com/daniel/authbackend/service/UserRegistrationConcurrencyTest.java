@@ -0,0 +1,125 @@
+package com.daniel.authbackend.service;
+
+import com.daniel.authbackend.dto.RegisterRequest;
+import com.daniel.authbackend.exception.UserAlreadyExistsException;
+import com.daniel.authbackend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Registro con un único INSERT: lanza registros duplicados en paralelo y
+ * comprueba que solo uno entra, que el resto recibe el mensaje del campo
+ * duplicado y que cada registro cuesta una sola sentencia.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "security.bcrypt.strength=4"
+})
+@ActiveProfiles("loadtest")
+class UserRegistrationConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private IUserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAllInBatch();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void parallelRegistrationsWithSameUsernameInsertOnlyOne() throws Exception {
+        List<Object> results = registerInParallel(n -> request("racer", "racer" + n + "@example.com"));
+
+        assertThat(results).filteredOn(RegisterOutcome.OK::equals).hasSize(1);
+        assertThat(results).filteredOn(UserAlreadyExistsException.class::isInstance)
+                .hasSize(THREADS - 1)
+                .allSatisfy(e -> assertThat(((Exception) e)).hasMessage("El usuario ya existe"));
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void parallelRegistrationsWithSameEmailInsertOnlyOne() throws Exception {
+        List<Object> results = registerInParallel(n -> request("mail" + n, "shared@example.com"));
+
+        assertThat(results).filteredOn(RegisterOutcome.OK::equals).hasSize(1);
+        assertThat(results).filteredOn(UserAlreadyExistsException.class::isInstance)
+                .hasSize(THREADS - 1)
+                .allSatisfy(e -> assertThat(((Exception) e)).hasMessage("El correo ya está en uso"));
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void registrationIssuesNoLookupQueries() {
+        // Calienta el pool de la secuencia (allocationSize 50) para no contar su SELECT
+        userService.register(request("warmup", "warmup@example.com"));
+        statistics.clear();
+
+        for (int i = 0; i < 10; i++) {
+            userService.register(request("single" + i, "single" + i + "@example.com"));
+        }
+
+        // Antes: existsByUsername + existsByEmail + INSERT por registro
+        assertThat(statistics.getQueryExecutionCount()).isZero();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(10);
+    }
+
+    private List<Object> registerInParallel(IntFunction<RegisterRequest> requests) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            RegisterRequest request = requests.apply(i);
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    userService.register(request);
+                    return RegisterOutcome.OK;
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            }));
+        }
+        start.countDown();
+        List<Object> results = new ArrayList<>();
+        for (Future<Object> f : futures) {
+            results.add(f.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    private static RegisterRequest request(String username, String email) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword("Register#2025");
+        return request;
+    }
+
+    private enum RegisterOutcome { OK }
+}